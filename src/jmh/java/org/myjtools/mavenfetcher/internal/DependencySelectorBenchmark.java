@@ -0,0 +1,89 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the cost of {@link MavenDependencySelector#selectDependency(Dependency)} on a
+ * large graph where every artifact is reached through several paths, as happens with
+ * frameworks such as Spring or Guava. Run it with {@code ./gradlew jmh}; the GC profiler
+ * reports the bytes allocated per operation, which is expected to be zero once every
+ * artifact of the graph has been selected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencySelectorBenchmark {
+
+    @Param({"10000"})
+    int artifacts;
+
+    @Param({"8"})
+    int pathsPerArtifact;
+
+    private Dependency[] edges;
+    private MavenDependencySelector selector;
+    private int next;
+
+
+    @Setup
+    public void prepareGraph() {
+        List<Dependency> dependencies = new ArrayList<>();
+        for (int i = 0; i < artifacts; i++) {
+            Dependency dependency = new Dependency(
+                new DefaultArtifact("org.group" + (i % 500), "artifact-" + i, "jar", "1." + (i % 10)),
+                "compile"
+            );
+            for (int path = 0; path < pathsPerArtifact; path++) {
+                dependencies.add(dependency);
+            }
+        }
+        Collections.shuffle(dependencies, new Random(42));
+        edges = dependencies.toArray(new Dependency[0]);
+        selector = new MavenDependencySelector(
+            Arrays.asList("compile", "provided"),
+            false,
+            new ExclusionMatcher(Arrays.asList("org.group1:*", "*:artifact-3", "org.group2:artifact-2")),
+            () -> false,
+            "org.group:root:jar:1.0",
+            new HashSet<>()
+        );
+        // select every artifact once, so the measurement covers the already visited edges
+        for (Dependency edge : edges) {
+            selector.selectDependency(edge);
+        }
+    }
+
+
+    @Benchmark
+    public boolean selectVisitedEdge() {
+        Dependency edge = edges[next];
+        next = next + 1 == edges.length ? 0 : next + 1;
+        return selector.selectDependency(edge);
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(1000)
+    public void selectVisitedEdgesConcurrently(Blackhole blackhole) {
+        int start = ThreadLocalRandom.current().nextInt(edges.length);
+        for (int i = 0; i < 1000; i++) {
+            blackhole.consume(selector.selectDependency(edges[(start + i) % edges.length]));
+        }
+    }
+
+}
@@ -46,6 +46,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Benjamin Bentmann
@@ -62,6 +63,12 @@ public class DefaultVersionResolver implements VersionResolver, Service {
 
     private static final String SNAPSHOT = "SNAPSHOT";
 
+    /*
+     * The records are kept in the session data, since the repository cache may outlive the session, and with it the
+     * update policy the versions were resolved with
+     */
+    private static final String RECORDS_KEY = DefaultVersionResolver.class.getName() + "$Records";
+
     private MetadataResolver metadataResolver;
 
     private SyncContextFactory syncContextFactory;
@@ -116,11 +123,12 @@ public class DefaultVersionResolver implements VersionResolver, Service {
         VersionResult result = new VersionResult(request);
 
         Key cacheKey = null;
-        RepositoryCache cache = session.getCache();
-        if (cache != null && !ConfigUtils.getBoolean(session, false, "aether.versionResolver.noCache")) {
+        Map<Key, Record> records = null;
+        if (!ConfigUtils.getBoolean(session, false, "aether.versionResolver.noCache")) {
             cacheKey = new Key(session, request);
+            records = records(session);
 
-            Object obj = cache.get(session, cacheKey);
+            Object obj = records.get(cacheKey);
             if (obj instanceof Record) {
                 Record record = (Record) obj;
                 result.setVersion(record.version);
@@ -228,7 +236,7 @@ public class DefaultVersionResolver implements VersionResolver, Service {
         }
 
         if (cacheKey != null && metadata != null && isSafelyCacheable(session, artifact)) {
-            cache.put(session, cacheKey, new Record(result.getVersion(), result.getRepository()));
+            records.put(cacheKey, new Record(result.getVersion(), result.getRepository()));
         }
 
         return result;
@@ -384,6 +392,11 @@ public class DefaultVersionResolver implements VersionResolver, Service {
         return null;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Record> records(RepositorySystemSession session) {
+        return (Map<Key, Record>) session.getData().computeIfAbsent(RECORDS_KEY, ConcurrentHashMap::new);
+    }
+
     private boolean isSafelyCacheable(RepositorySystemSession session, Artifact artifact) {
         /*
          * The workspace/reactor is in flux so we better not assume definitive information for any of its
@@ -144,6 +144,60 @@ public final class ConfigurationProperties {
      */
     public static final int DEFAULT_HTTP_RETRY_HANDLER_COUNT = 3;
 
+    /**
+     * The initial delay in milliseconds before retrying a failed request to a remote server. The delay doubles with
+     * every attempt, and a random part of it is actually waited for, so concurrent clients do not retry in lockstep.
+     *
+     * @see #DEFAULT_HTTP_RETRY_HANDLER_INTERVAL
+     */
+    public static final String HTTP_RETRY_HANDLER_INTERVAL = PREFIX_CONNECTOR + "http.retryHandler.interval";
+
+    /**
+     * The default initial retry delay to use if {@link #HTTP_RETRY_HANDLER_INTERVAL} isn't set.
+     */
+    public static final long DEFAULT_HTTP_RETRY_HANDLER_INTERVAL = 1000L;
+
+    /**
+     * The maximum delay in milliseconds before retrying a failed request to a remote server. Requests the server asks
+     * to retry later than that (using the {@code Retry-After} header) are not retried at all.
+     *
+     * @see #DEFAULT_HTTP_RETRY_HANDLER_INTERVAL_MAX
+     */
+    public static final String HTTP_RETRY_HANDLER_INTERVAL_MAX = PREFIX_CONNECTOR + "http.retryHandler.intervalMax";
+
+    /**
+     * The default maximum retry delay to use if {@link #HTTP_RETRY_HANDLER_INTERVAL_MAX} isn't set.
+     */
+    public static final long DEFAULT_HTTP_RETRY_HANDLER_INTERVAL_MAX = 60L * 1000L;
+
+    /**
+     * The comma-separated list of HTTP status codes which denote a temporary unavailability of the remote server, and
+     * for which requests are retried.
+     *
+     * @see #DEFAULT_HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE
+     */
+    public static final String HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE =
+            PREFIX_CONNECTOR + "http.retryHandler.serviceUnavailable";
+
+    /**
+     * The default status codes to use if {@link #HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE} isn't set.
+     */
+    public static final String DEFAULT_HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE = "429,502,503,504";
+
+    /**
+     * The number of retry tokens of each remote host. Every failed request takes a token and every successful one gives
+     * back a tenth of a token; requests are only retried while more than half of the tokens remain, which keeps
+     * concurrent transfers from flooding a struggling server with retries.
+     *
+     * @see #DEFAULT_HTTP_RETRY_HANDLER_BUDGET
+     */
+    public static final String HTTP_RETRY_HANDLER_BUDGET = PREFIX_CONNECTOR + "http.retryHandler.budget";
+
+    /**
+     * The default number of retry tokens to use if {@link #HTTP_RETRY_HANDLER_BUDGET} isn't set.
+     */
+    public static final int DEFAULT_HTTP_RETRY_HANDLER_BUDGET = 20;
+
     /**
      * Should HTTP client use preemptive auth (w/ BASIC) or not?
      *
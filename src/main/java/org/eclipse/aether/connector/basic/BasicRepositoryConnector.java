@@ -81,6 +81,8 @@ final class BasicRepositoryConnector implements RepositoryConnector {
 
     private final boolean persistedChecksums;
 
+    private final NotFoundCache notFoundCache;
+
     private Executor executor;
 
     private final AtomicBoolean closed;
@@ -100,7 +102,11 @@ final class BasicRepositoryConnector implements RepositoryConnector {
             throw new NoRepositoryConnectorException(repository, e.getMessage(), e);
         }
         try {
-            transporter = transporterProvider.newTransporter(session, repository);
+            transporter = HedgingTransporter.wrap(
+                    session,
+                    repository,
+                    transporterProvider,
+                    transporterProvider.newTransporter(session, repository));
         } catch (NoTransporterException e) {
             throw new NoRepositoryConnectorException(repository, e.getMessage(), e);
         }
@@ -120,6 +126,8 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                 session,
                 ConfigurationProperties.DEFAULT_PERSISTED_CHECKSUMS,
                 ConfigurationProperties.PERSISTED_CHECKSUMS);
+        Object cache = ConfigUtils.getObject(session, null, NotFoundCache.CONFIG_PROP);
+        notFoundCache = cache instanceof NotFoundCache ? (NotFoundCache) cache : null;
     }
 
     private Executor getExecutor(int tasks) {
@@ -167,6 +175,11 @@ final class BasicRepositoryConnector implements RepositoryConnector {
 
         for (MetadataDownload transfer : safeMetadataDownloads) {
             URI location = layout.getLocation(transfer.getMetadata(), false);
+            if (isKnownMissing(location)) {
+                transfer.setException(new MetadataNotFoundException(
+                        transfer.getMetadata(), repository, "Could not find metadata " + location + " (cached)"));
+                continue;
+            }
 
             TransferResource resource = newTransferResource(location, transfer.getFile(), transfer.getTrace());
             TransferEvent.Builder builder = newEventBuilder(resource, false, false);
@@ -185,6 +198,7 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                     checksumAlgorithmFactories,
                     checksumLocations,
                     null,
+                    transfer,
                     listener);
             if (first) {
                 task.run();
@@ -207,6 +221,11 @@ final class BasicRepositoryConnector implements RepositoryConnector {
             }
 
             URI location = layout.getLocation(transfer.getArtifact(), false);
+            if (isKnownMissing(location)) {
+                transfer.setException(new ArtifactNotFoundException(
+                        transfer.getArtifact(), repository, "Could not find artifact " + location + " (cached)"));
+                continue;
+            }
 
             TransferResource resource = newTransferResource(location, transfer.getFile(), transfer.getTrace());
             TransferEvent.Builder builder = newEventBuilder(resource, false, transfer.isExistenceCheck());
@@ -229,6 +248,7 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                         checksumAlgorithmFactories,
                         checksumLocations,
                         providedChecksums,
+                        null,
                         listener);
             }
             if (first) {
@@ -242,6 +262,13 @@ final class BasicRepositoryConnector implements RepositoryConnector {
         errorForwarder.await();
     }
 
+    /*
+     * Resources known to be missing are not requested, and without any transfer event since nothing is transferred
+     */
+    private boolean isKnownMissing(URI location) {
+        return notFoundCache != null && notFoundCache.isMissing(repository.getUrl(), location.toString());
+    }
+
     @Override
     public void put(
             Collection<? extends ArtifactUpload> artifactUploads,
@@ -389,11 +416,22 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                 runTask();
                 listener.transferSucceeded();
             } catch (Exception e) {
-                listener.transferFailed(e, transporter.classify(e));
+                int classification = transporter.classify(e);
+                if (classification == Transporter.ERROR_NOT_FOUND && notFoundCache != null && isLookup()) {
+                    notFoundCache.missing(repository.getUrl(), path.toString());
+                }
+                listener.transferFailed(e, classification);
             }
         }
 
         protected abstract void runTask() throws Exception;
+
+        /*
+         * Only downloads and existence checks tell whether a resource is missing
+         */
+        protected boolean isLookup() {
+            return true;
+        }
     }
 
     class PeekTaskRunner extends TaskRunner {
@@ -414,6 +452,12 @@ final class BasicRepositoryConnector implements RepositoryConnector {
 
         private final ChecksumValidator checksumValidator;
 
+        private final MetadataDownload metadataDownload;
+
+        /**
+         * @param metadataDownload The metadata download whose validators make the transfer conditional, or
+         *            {@code null} for artifact downloads
+         */
         GetTaskRunner(
                 URI path,
                 File file,
@@ -421,9 +465,11 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                 List<ChecksumAlgorithmFactory> checksumAlgorithmFactories,
                 List<RepositoryLayout.ChecksumLocation> checksumLocations,
                 Map<String, String> providedChecksums,
+                MetadataDownload metadataDownload,
                 TransferTransportListener<?> listener) {
             super(path, listener);
             this.file = requireNonNull(file, "destination file cannot be null");
+            this.metadataDownload = metadataDownload;
             checksumValidator = new ChecksumValidator(
                     file,
                     checksumAlgorithmFactories,
@@ -454,7 +500,22 @@ final class BasicRepositoryConnector implements RepositoryConnector {
                 listener.setChecksumCalculator(checksumValidator.newChecksumCalculator(tmp));
                 for (int firstTrial = 0, lastTrial = 1, trial = firstTrial; ; trial++) {
                     GetTask task = new GetTask(path).setDataFile(tmp, false).setListener(listener);
+                    // a retry after a checksum failure must not reuse the existing file
+                    boolean conditional = metadataDownload != null && trial == firstTrial && file.isFile();
+                    if (conditional) {
+                        task.setValidators(metadataDownload.getETag(), metadataDownload.getRemoteLastModified());
+                    }
                     transporter.get(task);
+                    if (conditional && task.isNotModified()) {
+                        // the existing file is up-to-date, so the empty temporary file is discarded
+                        if (!file.setLastModified(System.currentTimeMillis())) {
+                            LOGGER.debug("Could not touch unmodified file {}", file);
+                        }
+                        return;
+                    }
+                    if (metadataDownload != null) {
+                        metadataDownload.setValidators(task.getETag(), task.getRemoteLastModified());
+                    }
                     try {
                         checksumValidator.validate(
                                 listener.getChecksums(), smartChecksums ? task.getChecksums() : null);
@@ -518,6 +579,11 @@ final class BasicRepositoryConnector implements RepositoryConnector {
             this.checksumLocations = safe(checksumLocations);
         }
 
+        @Override
+        protected boolean isLookup() {
+            return false;
+        }
+
         @SuppressWarnings("checkstyle:innerassignment")
         @Override
         protected void runTask() throws Exception {
@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.connector.basic;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.FileUtils;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A transporter hedging the downloads from a repository with a mirror of the same content: when the repository does
+ * not start answering a download within the usual time, the same download is requested from the mirror, and the
+ * first one to respond successfully is kept while the other one is abandoned. The hedging delay is the 95th
+ * percentile of the latencies of the repository, so only the slowest downloads are duplicated.
+ * <p>
+ * Conditional and resumed downloads are not hedged, since their validators are specific to the repository.
+ */
+final class HedgingTransporter implements Transporter {
+
+    /**
+     * The mirror of the repository to hedge its downloads with, as a {@link RemoteRepository}. Hedging is disabled if
+     * not set.
+     */
+    static final String CONFIG_PROP_MIRROR = "aether.connector.hedging.mirror";
+
+    /**
+     * The hedging delay in milliseconds, used until enough latencies of the repository are known.
+     */
+    static final String CONFIG_PROP_DELAY = "aether.connector.hedging.delay";
+
+    static final long DEFAULT_DELAY = 1000L;
+
+    private static final String KEY = HedgingTransporter.class.getName();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingTransporter.class);
+
+    private final Transporter primary;
+
+    private final Transporter mirror;
+
+    private final Latencies primaryLatencies;
+
+    /*
+     * Latencies are shared by repository URL, and the mirrors hedge each other in turn, so the samples measured while
+     * acting as a mirror also set the hedging delay of the mirror when its own downloads are hedged
+     */
+    private final Latencies mirrorLatencies;
+
+    private final long delay;
+
+    private final ExecutorService executor;
+
+    private HedgingTransporter(
+            RepositorySystemSession session,
+            RemoteRepository repository,
+            Transporter primary,
+            RemoteRepository mirrorRepository,
+            Transporter mirror) {
+        this.primary = primary;
+        this.mirror = mirror;
+        this.primaryLatencies = getLatencies(session, repository);
+        this.mirrorLatencies = getLatencies(session, mirrorRepository);
+        this.delay = Math.max(
+                0L,
+                ConfigUtils.getLong(
+                        session, DEFAULT_DELAY, CONFIG_PROP_DELAY + "." + repository.getId(), CONFIG_PROP_DELAY));
+        // abandoned downloads keep their threads until they time out, so the pool is not bounded
+        this.executor = new ThreadPoolExecutor(
+                0,
+                Integer.MAX_VALUE,
+                3L,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new WorkerThreadFactory(getClass().getSimpleName() + '-' + repository.getHost() + '-'));
+    }
+
+    /**
+     * Wraps the transporter of a repository to hedge its downloads, if a mirror of the repository is configured.
+     *
+     * @return The hedging transporter, or the given one if hedging is not configured or not possible.
+     */
+    static Transporter wrap(
+            RepositorySystemSession session,
+            RemoteRepository repository,
+            TransporterProvider transporterProvider,
+            Transporter transporter) {
+        Object mirrorRepository =
+                ConfigUtils.getObject(session, null, CONFIG_PROP_MIRROR + "." + repository.getId(), CONFIG_PROP_MIRROR);
+        if (!(mirrorRepository instanceof RemoteRepository)) {
+            return transporter;
+        }
+        try {
+            Transporter mirror = transporterProvider.newTransporter(session, (RemoteRepository) mirrorRepository);
+            return new HedgingTransporter(
+                    session, repository, transporter, (RemoteRepository) mirrorRepository, mirror);
+        } catch (NoTransporterException e) {
+            LOGGER.debug("Downloads from {} are not hedged: {}", repository.getId(), e.getMessage());
+            return transporter;
+        }
+    }
+
+    private static Latencies getLatencies(RepositorySystemSession session, RemoteRepository repository) {
+        RepositoryCache repoCache = session.getCache();
+        if (repoCache == null) {
+            return new Latencies();
+        }
+        Object latencies = repoCache.get(session, KEY);
+        if (!(latencies instanceof ConcurrentMap)) {
+            synchronized (HedgingTransporter.class) {
+                latencies = repoCache.get(session, KEY);
+                if (!(latencies instanceof ConcurrentMap)) {
+                    latencies = new ConcurrentHashMap<String, Latencies>();
+                    repoCache.put(session, KEY, latencies);
+                }
+            }
+        }
+        @SuppressWarnings("unchecked")
+        ConcurrentMap<String, Latencies> map = (ConcurrentMap<String, Latencies>) latencies;
+        return map.computeIfAbsent(repository.getUrl(), url -> new Latencies());
+    }
+
+    @Override
+    public int classify(Throwable error) {
+        int classification = primary.classify(error);
+        return classification != ERROR_OTHER ? classification : mirror.classify(error);
+    }
+
+    @Override
+    public void peek(PeekTask task) throws Exception {
+        primary.peek(task);
+    }
+
+    @Override
+    public void get(GetTask task) throws Exception {
+        if (task.getResumeOffset() > 0L || task.getETag() != null || task.getRemoteLastModified() > 0L) {
+            primary.get(task);
+            return;
+        }
+        new HedgedGet(task).run();
+    }
+
+    @Override
+    public void put(PutTask task) throws Exception {
+        primary.put(task);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        primary.close();
+        mirror.close();
+    }
+
+    /**
+     * A download raced between the repository and its mirror. The first attempt to start receiving data wins, and
+     * the other one is cancelled as soon as it receives data itself.
+     */
+    private final class HedgedGet {
+
+        private final GetTask task;
+
+        private Attempt winner;
+
+        HedgedGet(GetTask task) {
+            this.task = task;
+        }
+
+        void run() throws Exception {
+            Attempt first = new Attempt(this, primary, primaryLatencies);
+            Attempt second = null;
+            executor.execute(first);
+            Attempt chosen;
+            synchronized (this) {
+                long hedgingDelay = primaryLatencies.percentile95(delay);
+                long deadline = System.currentTimeMillis() + hedgingDelay;
+                for (long wait = hedgingDelay; winner == null && !first.done && wait > 0L; ) {
+                    wait(wait);
+                    wait = deadline - System.currentTimeMillis();
+                }
+                if (winner == null && !first.done) {
+                    LOGGER.debug(
+                            "No response for {} within {} ms, hedging with mirror", task.getLocation(), hedgingDelay);
+                    second = new Attempt(this, mirror, mirrorLatencies);
+                    executor.execute(second);
+                }
+                while (winner == null && !(first.done && (second == null || second.done))) {
+                    wait();
+                }
+                if (winner != null) {
+                    chosen = winner;
+                } else {
+                    chosen = first.error == null || second == null || second.error != null ? first : second;
+                }
+                while (!chosen.done) {
+                    wait();
+                }
+            }
+            if (chosen.error != null) {
+                throw chosen.error;
+            }
+            chosen.copyTo(task);
+        }
+
+        synchronized boolean claim(Attempt attempt) {
+            if (winner == null) {
+                winner = attempt;
+                notifyAll();
+            }
+            return winner == attempt;
+        }
+
+        synchronized void finished(Attempt attempt, Exception error) {
+            attempt.error = error;
+            attempt.done = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * One of the downloads of a hedged download, forwarding its events to the original listener once it wins.
+     */
+    private static final class Attempt extends TransportListener implements Runnable {
+
+        private final HedgedGet hedgedGet;
+
+        private final Transporter transporter;
+
+        private final Latencies latencies;
+
+        private final GetTask task;
+
+        private final long startTime;
+
+        private boolean done;
+
+        private Exception error;
+
+        Attempt(HedgedGet hedgedGet, Transporter transporter, Latencies latencies) {
+            this.hedgedGet = hedgedGet;
+            this.transporter = transporter;
+            this.latencies = latencies;
+            this.task = new GetTask(hedgedGet.task.getLocation()).setListener(this);
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /*
+         * Each attempt writes to its own file, so the abandoned one cannot truncate the file of the winner
+         */
+        @Override
+        public void run() {
+            Exception failure = null;
+            File dataFile = hedgedGet.task.getDataFile();
+            try (FileUtils.CollocatedTempFile tempFile =
+                    dataFile != null ? FileUtils.newTempFile(dataFile.toPath()) : null) {
+                if (tempFile != null) {
+                    task.setDataFile(tempFile.getPath().toFile());
+                }
+                transporter.get(task);
+                // a download without any data event wins as well if nothing else did
+                if (hedgedGet.claim(this) && tempFile != null) {
+                    tempFile.move();
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+            hedgedGet.finished(this, failure);
+        }
+
+        /*
+         * The latency is recorded even if the attempt lost, so a slow repository keeps being measured while hedged
+         */
+        @Override
+        public void transportStarted(long dataOffset, long dataLength) throws TransferCancelledException {
+            latencies.record(System.currentTimeMillis() - startTime);
+            if (!hedgedGet.claim(this)) {
+                throw new TransferCancelledException();
+            }
+            hedgedGet.task.getListener().transportStarted(dataOffset, dataLength);
+        }
+
+        @Override
+        public void transportProgressed(ByteBuffer data) throws TransferCancelledException {
+            hedgedGet.task.getListener().transportProgressed(data);
+        }
+
+        void copyTo(GetTask target) throws Exception {
+            if (target.getDataFile() == null) {
+                try (OutputStream output = target.newOutputStream()) {
+                    output.write(task.getDataBytes());
+                }
+            }
+            task.getChecksums().forEach(target::setChecksum);
+            target.setValidators(task.getETag(), task.getRemoteLastModified());
+        }
+    }
+
+    /**
+     * The latest latencies until the first byte of the downloads from a repository.
+     */
+    static final class Latencies {
+
+        private static final int SIZE = 100;
+
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples = new long[SIZE];
+
+        private int next;
+
+        private int size;
+
+        synchronized void record(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % SIZE;
+            size = Math.min(size + 1, SIZE);
+        }
+
+        synchronized long percentile95(long defaultValue) {
+            if (size < MIN_SAMPLES) {
+                return defaultValue;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(size * 0.95d) - 1];
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.connector.basic;
+
+import org.eclipse.aether.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cache of the resources known to be missing from remote repositories, which outlives the repository system
+ * sessions. When set as the {@link #CONFIG_PROP} configuration property of a session, the connectors do not request
+ * the resources it contains, and add the ones the remote repositories report as not found.
+ * <p>
+ * Entries expire after a time-to-live, and the least recently used ones are evicted once the cache is full. The
+ * cache can optionally be persisted to a file, so it is shared by consecutive processes as well.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public final class NotFoundCache {
+
+    /**
+     * The configuration property holding the {@link NotFoundCache} used by the connectors of a session.
+     */
+    public static final String CONFIG_PROP = "aether.connector.notFoundCache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotFoundCache.class);
+
+    private static final char SEPARATOR = '\t';
+
+    private final int maxEntries;
+
+    private final long timeToLive;
+
+    private final Path file;
+
+    /*
+     * Expiration times of the missing resources, in access order
+     */
+    private final LinkedHashMap<String, Long> entries;
+
+    /**
+     * Creates a new cache, loading the entries of the given file if it exists.
+     *
+     * @param maxEntries The maximum number of missing resources kept, must be positive.
+     * @param timeToLive The time in milliseconds a resource is considered missing, must be positive.
+     * @param file The file the cache is persisted to, may be {@code null} to keep it in memory only.
+     */
+    public NotFoundCache(int maxEntries, long timeToLive, Path file) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive");
+        }
+        if (timeToLive <= 0L) {
+            throw new IllegalArgumentException("Time-to-live must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.file = file;
+        this.entries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > NotFoundCache.this.maxEntries;
+            }
+        };
+        if (file != null) {
+            load();
+        }
+    }
+
+    private static String key(String repositoryUrl, String path) {
+        String url = repositoryUrl.endsWith("/") ? repositoryUrl : repositoryUrl + '/';
+        return url + SEPARATOR + (path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    /**
+     * Tells whether a resource is known to be missing from a remote repository.
+     *
+     * @param repositoryUrl The URL of the remote repository, must not be {@code null}.
+     * @param path The path of the resource relative to the repository, must not be {@code null}.
+     * @return {@code true} if the resource was not found recently, {@code false} otherwise.
+     */
+    public synchronized boolean isMissing(String repositoryUrl, String path) {
+        String key = key(requireNonNull(repositoryUrl), requireNonNull(path));
+        Long expiration = entries.get(key);
+        if (expiration == null) {
+            return false;
+        }
+        if (expiration <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a resource the remote repository reported as not found.
+     *
+     * @param repositoryUrl The URL of the remote repository, must not be {@code null}.
+     * @param path The path of the resource relative to the repository, must not be {@code null}.
+     */
+    public synchronized void missing(String repositoryUrl, String path) {
+        String key = key(requireNonNull(repositoryUrl), requireNonNull(path));
+        entries.put(key, System.currentTimeMillis() + timeToLive);
+    }
+
+    /**
+     * Forgets every missing resource of a remote repository, e.g. after new content was deployed to it.
+     *
+     * @param repositoryUrl The URL of the remote repository, must not be {@code null}.
+     */
+    public synchronized void invalidate(String repositoryUrl) {
+        String prefix = key(requireNonNull(repositoryUrl), "");
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Forgets every missing resource.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Writes the unexpired entries to the file of the cache, if any.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    it.remove();
+                } else {
+                    lines.add(entry.getValue() + String.valueOf(SEPARATOR) + entry.getKey());
+                }
+            }
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileUtils.writeFile(file, path -> {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        });
+    }
+
+    /*
+     * Each line holds the expiration time, the repository URL and the path, separated by tabs
+     */
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                int separator = line.indexOf(SEPARATOR);
+                if (separator <= 0 || line.indexOf(SEPARATOR, separator + 1) < 0) {
+                    continue;
+                }
+                long expiration = Long.parseLong(line.substring(0, separator));
+                if (expiration > now) {
+                    entries.put(line.substring(separator + 1), Math.min(expiration, now + timeToLive));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.warn("Ignoring invalid cache of missing resources {}: {}", file, e.getMessage());
+            entries.clear();
+        }
+    }
+}
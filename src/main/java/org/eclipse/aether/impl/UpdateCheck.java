@@ -51,6 +51,10 @@ public final class UpdateCheck<T, E extends RepositoryException> {
 
     private E exception;
 
+    private String eTag;
+
+    private long remoteLastModified;
+
     /**
      * Creates an uninitialized update check request.
      */
@@ -254,6 +258,38 @@ public final class UpdateCheck<T, E extends RepositoryException> {
         return this;
     }
 
+    /**
+     * Gets the entity tag advertised by the remote repository for the cached item.
+     *
+     * @return The entity tag of the cached item or {@code null} if unknown.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the last-modified timestamp advertised by the remote repository for the cached item.
+     *
+     * @return The last-modified timestamp of the cached item or {@code 0} if unknown.
+     */
+    public long getRemoteLastModified() {
+        return remoteLastModified;
+    }
+
+    /**
+     * Sets the validators advertised by the remote repository for the cached item. These are recorded along with the
+     * update check, so a later update can be skipped if the remote item was not modified.
+     *
+     * @param eTag The entity tag of the cached item, may be {@code null}.
+     * @param remoteLastModified The last-modified timestamp of the cached item or {@code 0} if unknown.
+     * @return This object for chaining.
+     */
+    public UpdateCheck<T, E> setValidators(String eTag, long remoteLastModified) {
+        this.eTag = eTag;
+        this.remoteLastModified = remoteLastModified;
+        return this;
+    }
+
     @Override
     public String toString() {
         return getPolicy() + ": " + getFile() + " < " + getRepository();
@@ -25,10 +25,13 @@ import org.eclipse.aether.util.FileUtils;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.*;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * A utility class helping with file-based operations.
@@ -82,35 +85,58 @@ public class DefaultFileProcessor implements FileProcessor {
     }
 
     public long copy(File source, File target, ProgressListener listener) throws IOException {
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(source.toPath()));
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
                 FileUtils.CollocatedTempFile tempTarget = FileUtils.newTempFile(target.toPath());
-                OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempTarget.getPath()))) {
-            long result = copy(out, in, listener);
+                FileChannel out = FileChannel.open(
+                        tempTarget.getPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            long result = listener == null ? transfer(out, in) : copy(out, in, listener);
             tempTarget.move();
             return result;
         }
     }
 
-    private long copy(OutputStream os, InputStream is, ProgressListener listener) throws IOException {
+    /*
+     * Without a listener the data is never seen, so the copy is left to the operating system
+     */
+    private long transfer(FileChannel out, FileChannel in) throws IOException {
+        long size = in.size();
         long total = 0L;
-        byte[] buffer = new byte[1024 * 32];
-        while (true) {
-            int bytes = is.read(buffer);
-            if (bytes < 0) {
+        while (total < size) {
+            long bytes = in.transferTo(total, size - total, out);
+            if (bytes <= 0) {
+                // the source was truncated while copying
                 break;
             }
+            total += bytes;
+        }
+        return total;
+    }
 
-            os.write(buffer, 0, bytes);
+    private long copy(FileChannel out, FileChannel in, ProgressListener listener) throws IOException {
+        long total = 0L;
+        // the listener digests the data from a heap buffer without copying it, unlike from a direct one
+        ByteBuffer buffer = ByteBuffer.allocate(1024 * 32);
+        while (in.read(buffer) >= 0) {
+            ((Buffer) buffer).flip();
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
 
             total += bytes;
 
-            if (listener != null && bytes > 0) {
+            if (bytes > 0) {
+                ((Buffer) buffer).rewind();
                 try {
-                    listener.progressed(ByteBuffer.wrap(buffer, 0, bytes));
+                    listener.progressed(buffer);
                 } catch (Exception e) {
                     // too bad
                 }
             }
+            ((Buffer) buffer).clear();
         }
 
         return total;
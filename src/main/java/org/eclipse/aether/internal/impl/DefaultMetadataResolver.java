@@ -512,6 +512,12 @@ public class DefaultMetadataResolver implements MetadataResolver, Service {
                 download.setRepositories(repositories);
                 download.setListener(SafeTransferListener.wrap(session));
                 download.setTrace(trace);
+                for (UpdateCheck<Metadata, MetadataTransferException> check : checks) {
+                    if (check.getETag() != null || check.getRemoteLastModified() > 0L) {
+                        download.setValidators(check.getETag(), check.getRemoteLastModified());
+                        break;
+                    }
+                }
 
                 try (RepositoryConnector connector =
                         repositoryConnectorProvider.newRepositoryConnector(session, requestRepository)) {
@@ -521,6 +527,9 @@ public class DefaultMetadataResolver implements MetadataResolver, Service {
                 exception = download.getException();
 
                 if (exception == null) {
+                    for (UpdateCheck<Metadata, MetadataTransferException> check : checks) {
+                        check.setValidators(download.getETag(), download.getRemoteLastModified());
+                    }
 
                     List<String> contexts = Collections.singletonList(request.getRequestContext());
                     LocalMetadataRegistration registration =
@@ -64,6 +64,10 @@ public class DefaultUpdateCheckManager implements UpdateCheckManager, Service {
 
     private static final String ERROR_KEY_SUFFIX = ".error";
 
+    private static final String ETAG_KEY_SUFFIX = ".etag";
+
+    private static final String LAST_MODIFIED_KEY_SUFFIX = ".lastModified";
+
     private static final String NOT_FOUND = "";
 
     static final Object SESSION_CHECKS = new Object() {
@@ -243,6 +247,7 @@ public class DefaultUpdateCheckManager implements UpdateCheckManager, Service {
             if (fileExists) {
                 // last update was successful
                 lastUpdated = getLastUpdated(props, dataKey);
+                check.setValidators(props.getProperty(dataKey + ETAG_KEY_SUFFIX), getLastModified(props, dataKey));
             } else {
                 // this is the first attempt ever
                 lastUpdated = 0L;
@@ -317,6 +322,16 @@ public class DefaultUpdateCheckManager implements UpdateCheckManager, Service {
         }
     }
 
+    private long getLastModified(Properties props, String key) {
+        String value = props.getProperty(key + LAST_MODIFIED_KEY_SUFFIX, "");
+        try {
+            return (value.length() > 0) ? Long.parseLong(value) : 0L;
+        } catch (NumberFormatException e) {
+            LOGGER.debug("Cannot parse last modified date {}, ignoring it", value, e);
+            return 0L;
+        }
+    }
+
     private String getError(Properties props, String key) {
         return props.getProperty(key + ERROR_KEY_SUFFIX);
     }
@@ -473,10 +488,24 @@ public class DefaultUpdateCheckManager implements UpdateCheckManager, Service {
         String transferKey = getTransferKey(session, metadataFile, check.getRepository());
 
         setUpdated(session, updateKey);
-        write(touchFile, dataKey, transferKey, check.getException());
+        Map<String, String> updates = updates(dataKey, transferKey, check.getException());
+        if (check.getException() == null) {
+            updates.put(dataKey + ETAG_KEY_SUFFIX, check.getETag());
+            updates.put(
+                    dataKey + LAST_MODIFIED_KEY_SUFFIX,
+                    check.getRemoteLastModified() > 0L ? Long.toString(check.getRemoteLastModified()) : null);
+        } else if (check.getException() instanceof MetadataNotFoundException) {
+            updates.put(dataKey + ETAG_KEY_SUFFIX, null);
+            updates.put(dataKey + LAST_MODIFIED_KEY_SUFFIX, null);
+        }
+        trackingFileManager.update(touchFile, updates);
     }
 
     private Properties write(File touchFile, String dataKey, String transferKey, Exception error) {
+        return trackingFileManager.update(touchFile, updates(dataKey, transferKey, error));
+    }
+
+    private Map<String, String> updates(String dataKey, String transferKey, Exception error) {
         Map<String, String> updates = new HashMap<>();
 
         String timestamp = Long.toString(System.currentTimeMillis());
@@ -499,6 +528,6 @@ public class DefaultUpdateCheckManager implements UpdateCheckManager, Service {
             updates.put(transferKey + UPDATED_KEY_SUFFIX, timestamp);
         }
 
-        return trackingFileManager.update(touchFile, updates);
+        return updates;
     }
 }
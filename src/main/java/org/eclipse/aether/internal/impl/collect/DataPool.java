@@ -72,6 +72,12 @@ public final class DataPool {
      */
     private final InternPool<Object, Descriptor> descriptors;
 
+    /**
+     * Descriptors that failed to load, live during single collection invocation (same as this DataPool instance), so
+     * a transient failure is retried by the next collection even if the descriptor pool is shared.
+     */
+    private final Set<Object> failedDescriptors;
+
     /**
      * Constraint cache, lives during single collection invocation (same as this DataPool instance).
      */
@@ -126,6 +132,7 @@ public final class DataPool {
         this.dependencies = dependenciesPool;
         this.descriptors = descriptorsPool;
 
+        this.failedDescriptors = ConcurrentHashMap.newKeySet();
         this.constraints = new ConcurrentHashMap<>(256);
         this.nodes = new ConcurrentHashMap<>(256);
     }
@@ -143,6 +150,9 @@ public final class DataPool {
     }
 
     public ArtifactDescriptorResult getDescriptor(Object key, ArtifactDescriptorRequest request) {
+        if (failedDescriptors.contains(key)) {
+            return BadDescriptor.INSTANCE.toResult(request);
+        }
         Descriptor descriptor = descriptors.get(key);
         if (descriptor != null) {
             return descriptor.toResult(request);
@@ -155,7 +165,7 @@ public final class DataPool {
     }
 
     public void putDescriptor(Object key, ArtifactDescriptorException e) {
-        descriptors.intern(key, BadDescriptor.INSTANCE);
+        failedDescriptors.add(key);
     }
 
     public Object toKey(VersionRangeRequest request) {
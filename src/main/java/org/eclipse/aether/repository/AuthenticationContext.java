@@ -70,6 +70,12 @@ public final class AuthenticationContext implements Closeable {
      */
     public static final String PASSWORD = "password";
 
+    /**
+     * The key used to store a bearer token, sent instead of the username and password by transports supporting it. The
+     * corresponding authentication data should be of type {@code char[]} or {@link String}.
+     */
+    public static final String BEARER_TOKEN = "bearer.token";
+
     /**
      * The key used to store the NTLM domain. The corresponding authentication data should be of type {@link String}.
      */
@@ -40,6 +40,10 @@ public final class MetadataDownload extends MetadataTransfer {
 
     private List<RemoteRepository> repositories = Collections.emptyList();
 
+    private String eTag;
+
+    private long remoteLastModified;
+
     /**
      * Creates a new uninitialized download.
      */
@@ -140,6 +144,41 @@ public final class MetadataDownload extends MetadataTransfer {
         return this;
     }
 
+    /**
+     * Gets the entity tag of the metadata. Before the transfer, this is the entity tag of the existing local file, used
+     * to download the metadata only if it was modified. After the transfer, this is the entity tag advertised by the
+     * remote repository, if any.
+     *
+     * @return The entity tag of the metadata or {@code null} if unknown.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the last-modified timestamp of the metadata. Before the transfer, this is the timestamp advertised by the
+     * remote repository for the existing local file, used to download the metadata only if it was modified. After the
+     * transfer, this is the timestamp advertised by the remote repository, if any.
+     *
+     * @return The last-modified timestamp of the metadata or {@code 0} if unknown.
+     */
+    public long getRemoteLastModified() {
+        return remoteLastModified;
+    }
+
+    /**
+     * Sets the validators of the metadata.
+     *
+     * @param eTag The entity tag of the metadata, may be {@code null}.
+     * @param remoteLastModified The last-modified timestamp of the metadata or {@code 0} if unknown.
+     * @return This transfer for chaining, never {@code null}.
+     */
+    public MetadataDownload setValidators(String eTag, long remoteLastModified) {
+        this.eTag = eTag;
+        this.remoteLastModified = remoteLastModified;
+        return this;
+    }
+
     @Override
     public MetadataDownload setException(MetadataTransferException exception) {
         super.setException(exception);
@@ -23,7 +23,11 @@ import org.eclipse.aether.transfer.TransferCancelledException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -32,6 +36,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public abstract class AbstractTransporter implements Transporter {
 
+    private static final int BUFFER_SIZE = 1024 * 64;
+
+    /*
+     * Downloads read from a channel are written to disk through a direct buffer, which is reused by every download of
+     * the same thread since allocating it is expensive
+     */
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
     private final AtomicBoolean closed;
 
     /**
@@ -99,6 +112,40 @@ public abstract class AbstractTransporter implements Transporter {
         }
     }
 
+    /**
+     * Performs channel-based I/O for the specified download task and notifies the configured transport listener. If
+     * the task has a data file, the data is read into a direct buffer and written from it to the file channel, so it
+     * does not go through the Java heap on its way to disk. Subclasses able to provide a real channel, like a
+     * {@link FileChannel}, should prefer this method to {@link #utilGet(GetTask, InputStream, boolean, long, boolean)};
+     * a channel adapting an input stream would only add a copy.
+     *
+     * @param task The download to perform, must not be {@code null}.
+     * @param channel The channel to download the data from, must not be {@code null}.
+     * @param close {@code true} if the supplied channel should be automatically closed, {@code false} to leave the
+     *            channel open.
+     * @param length The size in bytes of the downloaded resource or {@code -1} if unknown, not to be confused with the
+     *            length of the supplied channel which might be smaller if the download is resumed.
+     * @param resume {@code true} if the download resumes from {@link GetTask#getResumeOffset()}, {@code false} if the
+     *            download starts at the first byte of the resource.
+     * @throws IOException If the transfer encountered an I/O error.
+     * @throws TransferCancelledException If the transfer was cancelled.
+     */
+    protected void utilGet(GetTask task, ReadableByteChannel channel, boolean close, long length, boolean resume)
+            throws IOException, TransferCancelledException {
+        if (task.getDataFile() == null) {
+            utilGet(task, Channels.newInputStream(channel), close, length, resume);
+            return;
+        }
+        try (FileChannel target = task.newDataChannel(resume)) {
+            task.getListener().transportStarted(resume ? task.getResumeOffset() : 0L, length);
+            copy(target, channel, task.getListener());
+        } finally {
+            if (close) {
+                channel.close();
+            }
+        }
+    }
+
     public void put(PutTask task) throws Exception {
         Objects.requireNonNull(task, "task cannot be null");
 
@@ -157,6 +204,21 @@ public abstract class AbstractTransporter implements Transporter {
         }
     }
 
+    private static void copy(FileChannel target, ReadableByteChannel source, TransportListener listener)
+            throws IOException, TransferCancelledException {
+        ByteBuffer buffer = DIRECT_BUFFER.get();
+        ((Buffer) buffer).clear();
+        while (source.read(buffer) >= 0) {
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            ((Buffer) buffer).rewind();
+            listener.transportProgressed(buffer);
+            ((Buffer) buffer).clear();
+        }
+    }
+
     private static void copy(OutputStream os, InputStream is, TransportListener listener)
             throws IOException, TransferCancelledException {
         byte[] buffer = new byte[1024 * 32];
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
@@ -45,6 +46,12 @@ public final class GetTask extends TransportTask {
 
     private Map<String, String> checksums;
 
+    private String eTag;
+
+    private long remoteLastModified;
+
+    private boolean notModified;
+
     /**
      * Creates a new task for the specified remote resource.
      *
@@ -101,6 +108,34 @@ public final class GetTask extends TransportTask {
         return dataBytes;
     }
 
+    /**
+     * Opens a file channel to store the downloaded data in {@link #getDataFile()}, so the data can be written to disk
+     * without going through an intermediate stream. It's the responsibility of the caller to close the provided
+     * channel.
+     *
+     * @param resume {@code true} if the download resumes from the byte offset given by {@link #getResumeOffset()},
+     *            {@code false} if the download starts at the first byte of the resource.
+     * @return The file channel for the data or {@code null} if the downloaded data is stored in memory.
+     * @throws IOException If the channel could not be opened.
+     */
+    public FileChannel newDataChannel(boolean resume) throws IOException {
+        if (dataFile == null) {
+            return null;
+        }
+        if (this.resume && resume) {
+            return FileChannel.open(
+                    dataFile.toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return FileChannel.open(
+                dataFile.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
     /**
      * Gets the file (if any) where the downloaded data should be stored. If the specified file already exists, it will
      * be overwritten.
@@ -185,6 +220,64 @@ public final class GetTask extends TransportTask {
         return new String(dataBytes.toByteArray(), StandardCharsets.UTF_8);
     }
 
+    /**
+     * Gets the entity tag of the resource. Before the transfer, this is the entity tag of the local copy, which the
+     * transporter may use to skip the download if the resource was not modified. After the transfer, this is the entity
+     * tag advertised by the remote repository, if any.
+     *
+     * @return The entity tag of the resource or {@code null} if unknown.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Gets the last-modified timestamp of the resource. Before the transfer, this is the timestamp advertised by the
+     * remote repository for the local copy, which the transporter may use to skip the download if the resource was not
+     * modified. After the transfer, this is the timestamp advertised by the remote repository, if any.
+     *
+     * @return The last-modified timestamp of the resource or {@code 0} if unknown.
+     */
+    public long getRemoteLastModified() {
+        return remoteLastModified;
+    }
+
+    /**
+     * Sets the validators of the resource. Callers set the validators of an existing local copy to request a
+     * conditional download; transporters supporting it set the validators advertised by the remote repository.
+     *
+     * @param eTag The entity tag of the resource, may be {@code null}.
+     * @param remoteLastModified The last-modified timestamp of the resource or {@code 0} if unknown.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setValidators(String eTag, long remoteLastModified) {
+        this.eTag = (eTag != null && !eTag.isEmpty()) ? eTag : null;
+        this.remoteLastModified = Math.max(remoteLastModified, 0L);
+        return this;
+    }
+
+    /**
+     * Indicates whether the remote repository reported that the resource was not modified since the local copy
+     * described by the validators was downloaded. In that case, no data has been downloaded.
+     *
+     * @return {@code true} if the local copy is up-to-date, {@code false} otherwise.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * Sets whether the remote repository reported that the resource was not modified. <em>Note:</em> Transporters
+     * should only use this method when the request was made conditional on the validators of this task.
+     *
+     * @param notModified {@code true} if the local copy is up-to-date, {@code false} otherwise.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setNotModified(boolean notModified) {
+        this.notModified = notModified;
+        return this;
+    }
+
     /**
      * Sets the listener that is to be notified during the transfer.
      *
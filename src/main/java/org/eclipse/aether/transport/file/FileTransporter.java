@@ -25,7 +25,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 /**
  * A transporter using {@link File}.
@@ -62,7 +64,7 @@ final class FileTransporter extends AbstractTransporter {
     @Override
     protected void implGet(GetTask task) throws Exception {
         File file = getFile(task, true);
-        utilGet(task, Files.newInputStream(file.toPath()), true, file.length(), false);
+        utilGet(task, FileChannel.open(file.toPath(), StandardOpenOption.READ), true, file.length(), false);
     }
 
     @Override
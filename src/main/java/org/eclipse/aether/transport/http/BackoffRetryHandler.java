@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.http;
+
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Retry handler delaying the retries of requests which failed with an I/O error according to the retry policy.
+ */
+final class BackoffRetryHandler extends DefaultHttpRequestRetryHandler {
+
+    private final RetryPolicy retryPolicy;
+
+    BackoffRetryHandler(RetryPolicy retryPolicy) {
+        super(retryPolicy.getMaxRetries(), false);
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+        if (!super.retryRequest(exception, executionCount, context)) {
+            return false;
+        }
+        long delay = retryPolicy.failed(executionCount, null);
+        if (delay < 0L) {
+            return false;
+        }
+        try {
+            RetryPolicy.sleep(delay);
+        } catch (InterruptedIOException e) {
+            return false;
+        }
+        return true;
+    }
+}
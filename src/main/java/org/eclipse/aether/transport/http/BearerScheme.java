@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AUTH;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.MalformedChallengeException;
+import org.apache.http.impl.auth.AuthSchemeBase;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.CharArrayBuffer;
+import org.eclipse.aether.repository.AuthenticationContext;
+
+import java.security.Principal;
+
+/**
+ * The bearer authentication scheme (RFC 6750), sending the token of the repository as is.
+ */
+final class BearerScheme extends AuthSchemeBase {
+
+    static final String NAME = "bearer";
+
+    private boolean complete;
+
+    @Override
+    public String getSchemeName() {
+        return NAME;
+    }
+
+    @Override
+    protected void parseChallenge(CharArrayBuffer buffer, int beginIndex, int endIndex)
+            throws MalformedChallengeException {
+        complete = true;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        return null;
+    }
+
+    @Override
+    public String getRealm() {
+        return null;
+    }
+
+    @Override
+    public boolean isConnectionBased() {
+        return false;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    @Deprecated
+    public Header authenticate(Credentials credentials, HttpRequest request) throws AuthenticationException {
+        if (!(credentials instanceof TokenCredentials)) {
+            throw new AuthenticationException("No bearer token available");
+        }
+        return new BasicHeader(
+                isProxy() ? AUTH.PROXY_AUTH_RESP : AUTH.WWW_AUTH_RESP, "Bearer " + credentials.getPassword());
+    }
+
+    @Override
+    public String toString() {
+        return "BEARER [complete=" + complete + "]";
+    }
+
+    /**
+     * The bearer token of a repository.
+     */
+    static final class TokenCredentials implements Credentials {
+
+        private final String token;
+
+        TokenCredentials(String token) {
+            this.token = token;
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return null;
+        }
+
+        @Override
+        public String getPassword() {
+            return token;
+        }
+    }
+
+    static final class Factory implements DeferredCredentialsProvider.Factory {
+
+        private final AuthenticationContext authContext;
+
+        Factory(AuthenticationContext authContext) {
+            this.authContext = authContext;
+        }
+
+        @Override
+        public Credentials newCredentials() {
+            String token = authContext.get(AuthenticationContext.BEARER_TOKEN);
+            return token != null ? new TokenCredentials(token) : null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.http;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of the connections of the HTTP transporter shared within a session, aggregated over the connection
+ * pools of every SSL configuration.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public final class ConnectionStatistics {
+
+    private final Collection<HttpClientConnectionManager> connectionManagers;
+
+    private final LongAdder connections = new LongAdder();
+
+    private final LongAdder connectNanos = new LongAdder();
+
+    private final LongAdder handshakes = new LongAdder();
+
+    private final LongAdder handshakeNanos = new LongAdder();
+
+    ConnectionStatistics(Collection<HttpClientConnectionManager> connectionManagers) {
+        this.connectionManagers = connectionManagers;
+    }
+
+    /**
+     * Gets the statistics of the connections shared within the given session.
+     *
+     * @param session The repository system session, must not be {@code null}.
+     * @return The statistics, or {@code null} if the HTTP state is not shared within the session.
+     */
+    public static ConnectionStatistics get(RepositorySystemSession session) {
+        GlobalState state = GlobalState.get(session);
+        return state != null ? state.getConnectionStatistics() : null;
+    }
+
+    void connected(long nanos) {
+        connections.increment();
+        connectNanos.add(nanos);
+    }
+
+    void handshaken(long nanos) {
+        handshakes.increment();
+        handshakeNanos.add(nanos);
+    }
+
+    private int sum(StatsField field) {
+        int total = 0;
+        for (HttpClientConnectionManager connectionManager : connectionManagers) {
+            if (connectionManager instanceof PoolingHttpClientConnectionManager) {
+                total += field.get(((PoolingHttpClientConnectionManager) connectionManager).getTotalStats());
+            }
+        }
+        return total;
+    }
+
+    private interface StatsField {
+        int get(PoolStats stats);
+    }
+
+    /**
+     * Gets the number of connections currently in use by a request.
+     *
+     * @return The number of leased connections.
+     */
+    public int getLeased() {
+        return sum(PoolStats::getLeased);
+    }
+
+    /**
+     * Gets the number of idle connections kept alive for further requests.
+     *
+     * @return The number of available connections.
+     */
+    public int getAvailable() {
+        return sum(PoolStats::getAvailable);
+    }
+
+    /**
+     * Gets the number of requests waiting for a connection to be leased.
+     *
+     * @return The number of pending requests.
+     */
+    public int getPending() {
+        return sum(PoolStats::getPending);
+    }
+
+    /**
+     * Gets the number of connections established so far.
+     *
+     * @return The number of connections opened.
+     */
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    /**
+     * Gets the total time spent establishing connections, including their TLS handshakes.
+     *
+     * @return The connect time in nanoseconds.
+     */
+    public long getConnectNanos() {
+        return connectNanos.sum();
+    }
+
+    /**
+     * Gets the number of TLS handshakes performed so far.
+     *
+     * @return The number of handshakes.
+     */
+    public long getHandshakes() {
+        return handshakes.sum();
+    }
+
+    /**
+     * Gets the total time spent in TLS handshakes.
+     *
+     * @return The handshake time in nanoseconds.
+     */
+    public long getHandshakeNanos() {
+        return handshakeNanos.sum();
+    }
+}
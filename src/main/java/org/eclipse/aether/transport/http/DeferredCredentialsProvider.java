@@ -64,7 +64,10 @@ final class DeferredCredentialsProvider implements CredentialsProvider {
                 Map.Entry<AuthScope, Factory> entry = it.next();
                 if (authScope.match(entry.getKey()) >= 0) {
                     it.remove();
-                    delegate.setCredentials(entry.getKey(), entry.getValue().newCredentials());
+                    Credentials credentials = entry.getValue().newCredentials();
+                    if (credentials != null) {
+                        delegate.setCredentials(entry.getKey(), credentials);
+                    }
                 }
             }
         }
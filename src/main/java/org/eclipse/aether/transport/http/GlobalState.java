@@ -20,12 +20,14 @@ package org.eclipse.aether.transport.http;
 
 import org.apache.http.HttpHost;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLInitializationException;
 import org.eclipse.aether.ConfigurationProperties;
@@ -36,6 +38,9 @@ import org.eclipse.aether.util.ConfigUtils;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
@@ -93,6 +98,15 @@ final class GlobalState implements Closeable {
 
     private final ConcurrentMap<CompoundKey, Boolean> expectContinues;
 
+    private final ConcurrentMap<CompoundKey, Boolean> preopenedRoutes;
+
+    private final ConnectionStatistics connectionStatistics;
+
+    /*
+     * Shared by every connection pool, so TLS sessions are resumed across pools as with the default socket factory
+     */
+    private static SSLSocketFactory insecureSocketFactory;
+
     public static GlobalState get(RepositorySystemSession session) {
         GlobalState cache;
         RepositoryCache repoCache = session.getCache();
@@ -122,6 +136,8 @@ final class GlobalState implements Closeable {
         userTokens = new ConcurrentHashMap<>();
         authSchemePools = new ConcurrentHashMap<>();
         expectContinues = new ConcurrentHashMap<>();
+        preopenedRoutes = new ConcurrentHashMap<>();
+        connectionStatistics = new ConnectionStatistics(connectionManagers.values());
     }
 
     @Override
@@ -138,7 +154,7 @@ final class GlobalState implements Closeable {
     public HttpClientConnectionManager getConnectionManager(SslConfig config) {
         HttpClientConnectionManager manager = connectionManagers.get(config);
         if (manager == null) {
-            HttpClientConnectionManager connMgr = newConnectionManager(config);
+            HttpClientConnectionManager connMgr = newConnectionManager(config, connectionStatistics);
             manager = connectionManagers.putIfAbsent(config, connMgr);
             if (manager != null) {
                 connMgr.shutdown();
@@ -149,10 +165,31 @@ final class GlobalState implements Closeable {
         return manager;
     }
 
-    @SuppressWarnings("checkstyle:magicnumber")
+    public ConnectionStatistics getConnectionStatistics() {
+        return connectionStatistics;
+    }
+
+    /**
+     * Tells whether the connections of the given route are still to be opened ahead of the requests, claiming them
+     * for the caller.
+     */
+    public boolean claimPreopen(HttpClientConnectionManager connMgr, HttpRoute route) {
+        return preopenedRoutes.putIfAbsent(new CompoundKey(connMgr, route), Boolean.TRUE) == null;
+    }
+
     public static HttpClientConnectionManager newConnectionManager(SslConfig sslConfig) {
+        return newConnectionManager(sslConfig, null);
+    }
+
+    @SuppressWarnings("checkstyle:magicnumber")
+    public static HttpClientConnectionManager newConnectionManager(
+            SslConfig sslConfig, ConnectionStatistics statistics) {
         RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
-                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+                .register(
+                        "http",
+                        statistics != null
+                                ? new TimedPlainSocketFactory(statistics)
+                                : PlainConnectionSocketFactory.getSocketFactory());
 
         if (sslConfig == null) {
             registryBuilder.register("https", SSLConnectionSocketFactory.getSystemSocketFactory());
@@ -169,15 +206,7 @@ final class GlobalState implements Closeable {
                 }
             } else if (ConfigurationProperties.HTTPS_SECURITY_MODE_INSECURE.equals(sslConfig.httpsSecurityMode)) {
                 if (sslSocketFactory == null) {
-                    try {
-                        sslSocketFactory = new SSLContextBuilder()
-                                .loadTrustMaterial(null, (chain, auth) -> true)
-                                .build()
-                                .getSocketFactory();
-                    } catch (Exception e) {
-                        throw new SSLInitializationException(
-                                "Could not configure '" + sslConfig.httpsSecurityMode + "' HTTPS security mode", e);
-                    }
+                    sslSocketFactory = getInsecureSocketFactory(sslConfig.httpsSecurityMode);
                 }
                 if (hostnameVerifier == null) {
                     hostnameVerifier = NoopHostnameVerifier.INSTANCE;
@@ -189,8 +218,15 @@ final class GlobalState implements Closeable {
 
             registryBuilder.register(
                     "https",
-                    new SSLConnectionSocketFactory(
-                            sslSocketFactory, sslConfig.protocols, sslConfig.cipherSuites, hostnameVerifier));
+                    statistics != null
+                            ? new TimedSslSocketFactory(
+                                    sslSocketFactory,
+                                    sslConfig.protocols,
+                                    sslConfig.cipherSuites,
+                                    hostnameVerifier,
+                                    statistics)
+                            : new SSLConnectionSocketFactory(
+                                    sslSocketFactory, sslConfig.protocols, sslConfig.cipherSuites, hostnameVerifier));
         }
 
         PoolingHttpClientConnectionManager connMgr = new PoolingHttpClientConnectionManager(registryBuilder.build());
@@ -199,6 +235,21 @@ final class GlobalState implements Closeable {
         return connMgr;
     }
 
+    private static synchronized SSLSocketFactory getInsecureSocketFactory(String httpsSecurityMode) {
+        if (insecureSocketFactory == null) {
+            try {
+                insecureSocketFactory = new SSLContextBuilder()
+                        .loadTrustMaterial(null, (chain, auth) -> true)
+                        .build()
+                        .getSocketFactory();
+            } catch (Exception e) {
+                throw new SSLInitializationException(
+                        "Could not configure '" + httpsSecurityMode + "' HTTPS security mode", e);
+            }
+        }
+        return insecureSocketFactory;
+    }
+
     public Object getUserToken(CompoundKey key) {
         return userTokens.get(key);
     }
@@ -222,4 +273,67 @@ final class GlobalState implements Closeable {
     public void setExpectContinue(CompoundKey key, boolean enabled) {
         expectContinues.put(key, enabled);
     }
+
+    private static final class TimedPlainSocketFactory extends PlainConnectionSocketFactory {
+
+        private final ConnectionStatistics statistics;
+
+        TimedPlainSocketFactory(ConnectionStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Socket connectSocket(
+                int connectTimeout,
+                Socket socket,
+                HttpHost host,
+                InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress,
+                HttpContext context)
+                throws IOException {
+            long start = System.nanoTime();
+            Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            statistics.connected(System.nanoTime() - start);
+            return connected;
+        }
+    }
+
+    private static final class TimedSslSocketFactory extends SSLConnectionSocketFactory {
+
+        private final ConnectionStatistics statistics;
+
+        TimedSslSocketFactory(
+                SSLSocketFactory socketFactory,
+                String[] protocols,
+                String[] cipherSuites,
+                HostnameVerifier hostnameVerifier,
+                ConnectionStatistics statistics) {
+            super(socketFactory, protocols, cipherSuites, hostnameVerifier);
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Socket connectSocket(
+                int connectTimeout,
+                Socket socket,
+                HttpHost host,
+                InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress,
+                HttpContext context)
+                throws IOException {
+            long start = System.nanoTime();
+            Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            statistics.connected(System.nanoTime() - start);
+            return connected;
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+                throws IOException {
+            long start = System.nanoTime();
+            Socket layered = super.createLayeredSocket(socket, target, port, context);
+            statistics.handshaken(System.nanoTime() - start);
+            return layered;
+        }
+    }
 }
@@ -19,18 +19,25 @@
 package org.eclipse.aether.transport.http;
 
 import org.apache.http.*;
+import org.apache.http.auth.AuthProtocolState;
+import org.apache.http.auth.AuthScheme;
 import org.apache.http.auth.AuthSchemeProvider;
 import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthState;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseContentEncoding;
 import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.auth.*;
@@ -48,19 +55,35 @@ import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.transfer.TransferCancelledException;
 import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.FileUtils;
+import org.eclipse.aether.util.concurrency.ExecutorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -77,8 +100,35 @@ final class HttpTransporter extends AbstractTransporter {
 
     static final String USE_SYSTEM_PROPERTIES = "aether.connector.http.useSystemProperties";
 
+    /**
+     * The number of ranges fetched concurrently when downloading a large file, or {@code 1} to download every file
+     * with a single request.
+     */
+    static final String SEGMENTS = "aether.connector.http.segments";
+
+    /**
+     * The size in bytes above which a file is downloaded in several ranges; it is also the size of the first range.
+     */
+    static final String SEGMENT_THRESHOLD = "aether.connector.http.segmentThreshold";
+
+    static final int DEFAULT_SEGMENT_THRESHOLD = 16 * 1024 * 1024;
+
+    /**
+     * The number of connections opened to the repository in background when its first transporter is created, ahead of
+     * the requests needing them. Repositories accessed through a proxy are not warmed up.
+     */
+    static final String PREOPEN_CONNECTIONS = "aether.connector.http.preopenConnections";
+
+    private static final int SEGMENT_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Only textual resources are worth compressing; artifacts are usually compressed already
+     */
+    private static final Pattern COMPRESSIBLE_PATTERN =
+            Pattern.compile(".*\\.(pom|xml|md5|sha1|sha256|sha512)$", Pattern.CASE_INSENSITIVE);
+
     private static final Pattern CONTENT_RANGE_PATTERN =
-            Pattern.compile("\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/.*");
+            Pattern.compile("\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/\\s*([0-9]+|\\*)?.*");
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpTransporter.class);
 
@@ -106,6 +156,18 @@ final class HttpTransporter extends AbstractTransporter {
 
     private final boolean supportWebDav;
 
+    private final int segments;
+
+    private final RetryPolicy retryPolicy;
+
+    private final LearnedAuthSchemes learnedAuthSchemes;
+
+    private final String authServer;
+
+    private final boolean bearerAuth;
+
+    private final long segmentThreshold;
+
     HttpTransporter(
             Map<String, ChecksumExtractor> checksumExtractors,
             RemoteRepository repository,
@@ -150,11 +212,25 @@ final class HttpTransporter extends AbstractTransporter {
                 ConfigurationProperties.DEFAULT_HTTP_PREEMPTIVE_AUTH,
                 ConfigurationProperties.HTTP_PREEMPTIVE_AUTH + "." + repository.getId(),
                 ConfigurationProperties.HTTP_PREEMPTIVE_AUTH);
+        this.bearerAuth = repoAuthContext != null && repoAuthContext.get(AuthenticationContext.BEARER_TOKEN) != null;
+        Object learnedAuthSchemes = ConfigUtils.getObject(session, null, LearnedAuthSchemes.CONFIG_PROP);
+        this.learnedAuthSchemes =
+                learnedAuthSchemes instanceof LearnedAuthSchemes ? (LearnedAuthSchemes) learnedAuthSchemes : null;
+        this.authServer = SharingAuthCache.toKey(server).toURI();
         this.preemptivePutAuth = // defaults to true: Wagon does same
                 ConfigUtils.getBoolean(
                         session, true, PREEMPTIVE_PUT_AUTH + "." + repository.getId(), PREEMPTIVE_PUT_AUTH);
         this.supportWebDav = // defaults to false: who needs it will enable it
                 ConfigUtils.getBoolean(session, false, SUPPORT_WEBDAV + "." + repository.getId(), SUPPORT_WEBDAV);
+        this.segments = Math.max(
+                1, ConfigUtils.getInteger(session, 1, SEGMENTS + "." + repository.getId(), SEGMENTS));
+        this.segmentThreshold = Math.max(
+                1L,
+                ConfigUtils.getLong(
+                        session,
+                        DEFAULT_SEGMENT_THRESHOLD,
+                        SEGMENT_THRESHOLD + "." + repository.getId(),
+                        SEGMENT_THRESHOLD));
         String credentialEncoding = ConfigUtils.getString(
                 session,
                 ConfigurationProperties.DEFAULT_HTTP_CREDENTIAL_ENCODING,
@@ -170,11 +246,6 @@ final class HttpTransporter extends AbstractTransporter {
                 ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
                 ConfigurationProperties.REQUEST_TIMEOUT + "." + repository.getId(),
                 ConfigurationProperties.REQUEST_TIMEOUT);
-        int retryCount = ConfigUtils.getInteger(
-                session,
-                ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_COUNT,
-                ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT + "." + repository.getId(),
-                ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT);
         String userAgent = ConfigUtils.getString(
                 session, ConfigurationProperties.DEFAULT_USER_AGENT, ConfigurationProperties.USER_AGENT);
 
@@ -182,6 +253,7 @@ final class HttpTransporter extends AbstractTransporter {
 
         Registry<AuthSchemeProvider> authSchemeRegistry = RegistryBuilder.<AuthSchemeProvider>create()
                 .register(AuthSchemes.BASIC, new BasicSchemeFactory(credentialsCharset))
+                .register(BearerScheme.NAME, context -> new BearerScheme())
                 .register(AuthSchemes.DIGEST, new DigestSchemeFactory(credentialsCharset))
                 .register(AuthSchemes.NTLM, new NTLMSchemeFactory())
                 .register(AuthSchemes.SPNEGO, new SPNegoSchemeFactory())
@@ -197,13 +269,17 @@ final class HttpTransporter extends AbstractTransporter {
                 .setSocketTimeout(requestTimeout)
                 .build();
 
-        DefaultHttpRequestRetryHandler retryHandler = new DefaultHttpRequestRetryHandler(retryCount, false);
+        this.retryPolicy = new RetryPolicy(session, repository);
+        DefaultHttpRequestRetryHandler retryHandler = new BackoffRetryHandler(retryPolicy);
 
         HttpClientBuilder builder = HttpClientBuilder.create()
                 .setUserAgent(userAgent)
                 .setDefaultSocketConfig(socketConfig)
                 .setDefaultRequestConfig(requestConfig)
                 .setRetryHandler(retryHandler)
+                // compression is requested per resource, but any compressed response is decoded
+                .disableContentCompression()
+                .addInterceptorLast(new ResponseContentEncoding())
                 .setDefaultAuthSchemeRegistry(authSchemeRegistry)
                 .setConnectionManager(state.getConnectionManager())
                 .setConnectionManagerShared(true)
@@ -220,6 +296,65 @@ final class HttpTransporter extends AbstractTransporter {
         }
 
         this.client = builder.build();
+
+        int preopenConnections = ConfigUtils.getInteger(
+                session, 0, PREOPEN_CONNECTIONS + "." + repository.getId(), PREOPEN_CONNECTIONS);
+        if (preopenConnections > 0 && proxy == null) {
+            boolean secure = "https".equalsIgnoreCase(server.getSchemeName());
+            int port = server.getPort() >= 0 ? server.getPort() : secure ? 443 : 80;
+            HttpRoute route = new HttpRoute(
+                    new HttpHost(server.getHostName(), port, server.getSchemeName()), null, secure);
+            if (state.claimPreopen(route)) {
+                preopenConnections(route, preopenConnections, connectTimeout);
+            }
+        }
+    }
+
+    /*
+     * Every connection is kept leased until all of them are open, so the pool does not hand the same one twice
+     */
+    private void preopenConnections(HttpRoute route, int connections, int connectTimeout) {
+        HttpClientConnectionManager connMgr = state.getConnectionManager();
+        CountDownLatch opened = new CountDownLatch(connections);
+        ExecutorService executor = ExecutorUtils.threadPool(Math.max(2, connections), "HttpTransporter-preopen-");
+        try {
+            for (int i = 0; i < connections; i++) {
+                executor.execute(() -> preopenConnection(connMgr, route, connectTimeout, opened));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void preopenConnection(
+            HttpClientConnectionManager connMgr, HttpRoute route, int connectTimeout, CountDownLatch opened) {
+        HttpClientConnection conn = null;
+        try {
+            conn = connMgr.requestConnection(route, null).get(connectTimeout, TimeUnit.MILLISECONDS);
+            if (!conn.isOpen()) {
+                HttpClientContext context = HttpClientContext.create();
+                connMgr.connect(conn, route, connectTimeout, context);
+                connMgr.routeComplete(conn, route, context);
+            }
+            opened.countDown();
+            opened.await(connectTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.debug("Could not open a connection to {} in advance: {}", route.getTargetHost(), e.getMessage());
+            opened.countDown();
+            if (conn != null) {
+                try {
+                    conn.shutdown();
+                } catch (IOException ignored) {
+                    // the connection is discarded anyway
+                }
+            }
+        } finally {
+            if (conn != null) {
+                connMgr.releaseConnection(conn, null, 0L, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     private static HttpHost toHost(Proxy proxy) {
@@ -248,6 +383,9 @@ final class HttpTransporter extends AbstractTransporter {
 
             AuthScope ntlmScope = new AuthScope(host, port, AuthScope.ANY_REALM, "ntlm");
             provider.setCredentials(ntlmScope, new DeferredCredentialsProvider.NtlmFactory(ctx));
+
+            AuthScope bearerScope = new AuthScope(host, port, AuthScope.ANY_REALM, BearerScheme.NAME);
+            provider.setCredentials(bearerScope, new BearerScheme.Factory(ctx));
         }
         return provider;
     }
@@ -278,15 +416,21 @@ final class HttpTransporter extends AbstractTransporter {
     @Override
     protected void implGet(GetTask task) throws Exception {
         boolean resume = true;
+        boolean segmented = isSegmented(task);
         boolean applyChecksumExtractors = true;
 
         EntityGetter getter = new EntityGetter(task);
         HttpGet request = commonHeaders(new HttpGet(resolve(task)));
         while (true) {
             try {
+                compressed(request);
+                conditional(request, task);
                 if (resume) {
                     resume(request, task);
                 }
+                if (segmented) {
+                    firstSegment(request);
+                }
                 if (applyChecksumExtractors) {
                     for (ChecksumExtractor checksumExtractor : checksumExtractors.values()) {
                         checksumExtractor.prepareRequest(request);
@@ -295,6 +439,18 @@ final class HttpTransporter extends AbstractTransporter {
                 execute(request, getter);
                 break;
             } catch (HttpResponseException e) {
+                if (e.getStatusCode() == HttpStatus.SC_NOT_MODIFIED
+                        && (request.containsHeader(HttpHeaders.IF_NONE_MATCH)
+                                || request.containsHeader(HttpHeaders.IF_MODIFIED_SINCE))) {
+                    task.setNotModified(true);
+                    break;
+                }
+                if (segmented && e.getStatusCode() == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    // empty files have no range at all
+                    request = commonHeaders(new HttpGet(resolve(task)));
+                    segmented = false;
+                    continue;
+                }
                 if (resume
                         && e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED
                         && request.containsHeader(HttpHeaders.RANGE)) {
@@ -342,7 +498,7 @@ final class HttpTransporter extends AbstractTransporter {
         try {
             SharingHttpContext context = new SharingHttpContext(state);
             prepare(request, context);
-            try (CloseableHttpResponse response = client.execute(server, request, context)) {
+            try (CloseableHttpResponse response = send(request, context)) {
                 try {
                     context.close();
                     handleStatus(response);
@@ -361,10 +517,70 @@ final class HttpTransporter extends AbstractTransporter {
         }
     }
 
+    /*
+     * Retries the request as long as the server is temporarily unavailable, I/O errors are retried by the client
+     */
+    private CloseableHttpResponse send(HttpUriRequest request, SharingHttpContext context) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            retryPolicy.await();
+            CloseableHttpResponse response = client.execute(server, request, context);
+            learnAuthScheme(context);
+            int status = response.getStatusLine().getStatusCode();
+            if (!retryPolicy.isRetryable(status)) {
+                retryPolicy.succeeded();
+                return response;
+            }
+            if (request instanceof HttpEntityEnclosingRequest) {
+                HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+                if (entity != null && !entity.isRepeatable()) {
+                    return response;
+                }
+            }
+            Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+            long delay = retryPolicy.failed(attempt, retryAfter != null ? retryAfter.getValue() : null);
+            if (delay < 0L) {
+                return response;
+            }
+            LOGGER.debug(
+                    "{} {} answered with status {}, retrying in {} ms",
+                    request.getMethod(),
+                    request.getURI(),
+                    status,
+                    delay);
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+            RetryPolicy.sleep(delay);
+        }
+    }
+
+    /*
+     * Remembers the stateless scheme the server accepted the credentials with, so the next requests send them upfront
+     */
+    private void learnAuthScheme(HttpClientContext context) {
+        AuthState authState = context.getTargetAuthState();
+        if (learnedAuthSchemes == null
+                || authState == null
+                || authState.getAuthScheme() == null
+                || context.getTargetHost() == null
+                || !authServer.equals(SharingAuthCache.toKey(context.getTargetHost()).toURI())) {
+            return;
+        }
+        if (authState.getState() == AuthProtocolState.SUCCESS) {
+            learnedAuthSchemes.learned(authServer, authState.getAuthScheme().getSchemeName());
+        } else if (authState.getState() == AuthProtocolState.FAILURE) {
+            learnedAuthSchemes.forget(authServer);
+        }
+    }
+
     private void prepare(HttpUriRequest request, SharingHttpContext context) {
         final boolean put = HttpPut.METHOD_NAME.equalsIgnoreCase(request.getMethod());
         if (preemptiveAuth || (preemptivePutAuth && put)) {
-            context.getAuthCache().put(server, new BasicScheme());
+            context.getAuthCache().put(server, newAuthScheme(bearerAuth ? BearerScheme.NAME : AuthSchemes.BASIC));
+        } else if (learnedAuthSchemes != null && repoAuthContext != null) {
+            String scheme = learnedAuthSchemes.get(authServer);
+            if (scheme != null) {
+                context.getAuthCache().put(server, newAuthScheme(scheme));
+            }
         }
         if (supportWebDav) {
             if (state.getWebDav() == null && (put || isPayloadPresent(request))) {
@@ -382,6 +598,10 @@ final class HttpTransporter extends AbstractTransporter {
         }
     }
 
+    private static AuthScheme newAuthScheme(String name) {
+        return BearerScheme.NAME.equalsIgnoreCase(name) ? new BearerScheme() : new BasicScheme();
+    }
+
     @SuppressWarnings("checkstyle:magicnumber")
     private void mkdirs(URI uri, SharingHttpContext context) {
         List<URI> dirs = UriUtils.getDirectories(baseUri, uri);
@@ -459,6 +679,48 @@ final class HttpTransporter extends AbstractTransporter {
         return request;
     }
 
+    private <T extends HttpUriRequest> T conditional(T request, GetTask task) {
+        if (task.getETag() != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, task.getETag());
+        }
+        if (task.getRemoteLastModified() > 0L) {
+            request.setHeader(
+                    HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(new Date(task.getRemoteLastModified())));
+        }
+        return request;
+    }
+
+    /*
+     * Large files are downloaded in several segments, but the size is unknown until the first response, so the first
+     * request only asks for the first segment; smaller files are fully included in it
+     */
+    private boolean isSegmented(GetTask task) {
+        return segments > 1
+                && !isCompressible(task)
+                && task.getDataFile() != null
+                && task.getResumeOffset() == 0L
+                && task.getETag() == null
+                && task.getRemoteLastModified() == 0L;
+    }
+
+    private boolean isCompressible(TransportTask task) {
+        return COMPRESSIBLE_PATTERN.matcher(task.getLocation().getPath()).matches();
+    }
+
+    private <T extends HttpUriRequest> T compressed(T request) {
+        if (COMPRESSIBLE_PATTERN.matcher(request.getURI().getPath()).matches()
+                && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        }
+        return request;
+    }
+
+    private <T extends HttpUriRequest> T firstSegment(T request) {
+        request.setHeader(HttpHeaders.RANGE, "bytes=0-" + (segmentThreshold - 1L));
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        return request;
+    }
+
     @SuppressWarnings("checkstyle:magicnumber")
     private <T extends HttpUriRequest> T resume(T request, GetTask task) {
         long resumeOffset = task.getResumeOffset();
@@ -506,7 +768,7 @@ final class HttpTransporter extends AbstractTransporter {
                 entity = new ByteArrayEntity(new byte[0]);
             }
 
-            long offset = 0L, length = entity.getContentLength();
+            long offset = 0L, length = entity.getContentLength(), total = -1L;
             Header rangeHeader = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
             String range = rangeHeader != null ? rangeHeader.getValue() : null;
             if (range != null) {
@@ -520,6 +782,9 @@ final class HttpTransporter extends AbstractTransporter {
                     throw new IOException("Invalid Content-Range header for partial download from offset "
                             + task.getResumeOffset() + ": " + range);
                 }
+                if (m.group(3) != null && !"*".equals(m.group(3))) {
+                    total = Long.parseLong(m.group(3));
+                }
             }
 
             final boolean resume = offset > 0L;
@@ -537,8 +802,12 @@ final class HttpTransporter extends AbstractTransporter {
                             Files.copy(inputStream, tempFile.getPath(), StandardCopyOption.REPLACE_EXISTING);
                         }
                     }
-                    try (InputStream is = entity.getContent()) {
-                        utilGet(task, is, true, length, resume);
+                    if (offset == 0L && total > length) {
+                        new SegmentedDownload(task, response).download(entity, length, total, tempFile.getPath());
+                    } else {
+                        try (InputStream is = entity.getContent()) {
+                            utilGet(task, is, true, length, resume);
+                        }
                     }
                     tempFile.move();
                 } finally {
@@ -546,6 +815,14 @@ final class HttpTransporter extends AbstractTransporter {
                 }
             }
             extractChecksums(response);
+            extractValidators(response);
+        }
+
+        private void extractValidators(CloseableHttpResponse response) {
+            Header eTag = response.getFirstHeader(HttpHeaders.ETAG);
+            Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+            Date date = lastModified != null ? DateUtils.parseDate(lastModified.getValue()) : null;
+            task.setValidators(eTag != null ? eTag.getValue() : null, date != null ? date.getTime() : 0L);
         }
 
         private void extractChecksums(CloseableHttpResponse response) {
@@ -559,6 +836,205 @@ final class HttpTransporter extends AbstractTransporter {
         }
     }
 
+    /**
+     * Download of a large file in several ranges, each one fetched over its own pooled connection. The first range is
+     * the body of the initial response; the rest of the file is split in ranges taken in turn by the calling thread
+     * and a pool of workers, and written at their offsets. Since the ranges arrive out of order, the transport listener
+     * only gets empty notifications, enabling cancellation, until the whole file is written; then the file is read
+     * back, so the listener calculates the checksums of the assembled file.
+     */
+    private class SegmentedDownload {
+
+        private final GetTask task;
+
+        private final URI uri;
+
+        private final String validator;
+
+        private final Queue<long[]> ranges = new ConcurrentLinkedQueue<>();
+
+        private final Queue<HttpGet> requests = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean aborted = new AtomicBoolean();
+
+        SegmentedDownload(GetTask task, CloseableHttpResponse response) {
+            this.task = task;
+            this.uri = resolve(task);
+            this.validator = validator(response);
+        }
+
+        /*
+         * Only a strong entity tag or a last-modified date guarantee that every range belongs to the same content
+         */
+        private String validator(CloseableHttpResponse response) {
+            Header eTag = response.getFirstHeader(HttpHeaders.ETAG);
+            if (eTag != null && !eTag.getValue().startsWith("W/")) {
+                return eTag.getValue();
+            }
+            Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+            return lastModified != null ? lastModified.getValue() : null;
+        }
+
+        void download(HttpEntity first, long firstLength, long total, Path path)
+                throws IOException, TransferCancelledException {
+            TransportListener listener = task.getListener();
+            listener.transportStarted(0L, total);
+            long rangeLength = (total - firstLength + segments - 1) / segments;
+            for (long start = firstLength; start < total; start += rangeLength) {
+                ranges.add(new long[] {start, Math.min(start + rangeLength, total) - 1L});
+            }
+            int workers = Math.min(segments - 1, ranges.size());
+            ExecutorService executor = ExecutorUtils.threadPool(Math.max(2, workers), "HttpTransporter-segment-");
+            try (FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                List<Future<?>> futures = new ArrayList<>(workers);
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            fetchRanges(channel, null);
+                        } catch (IOException | RuntimeException e) {
+                            // stop the other ranges as soon as possible
+                            aborted.set(true);
+                            throw e;
+                        }
+                        return null;
+                    }));
+                }
+                try {
+                    try (InputStream is = first.getContent()) {
+                        write(is, channel, 0L, firstLength, listener);
+                    }
+                    fetchRanges(channel, listener);
+                    for (Future<?> future : futures) {
+                        await(future, listener);
+                    }
+                } catch (IOException | TransferCancelledException | RuntimeException e) {
+                    abort();
+                    throw e;
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            replay(path, listener);
+        }
+
+        private void fetchRanges(FileChannel channel, TransportListener listener)
+                throws IOException, TransferCancelledException {
+            for (long[] range = ranges.poll(); range != null && !aborted.get(); range = ranges.poll()) {
+                fetchRange(channel, range[0], range[1], listener);
+            }
+        }
+
+        private void fetchRange(FileChannel channel, long start, long end, TransportListener listener)
+                throws IOException, TransferCancelledException {
+            HttpGet request = commonHeaders(new HttpGet(uri));
+            request.setHeader(HttpHeaders.RANGE, "bytes=" + start + '-' + end);
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+            if (validator != null) {
+                request.setHeader(HttpHeaders.IF_RANGE, validator);
+            }
+            requests.add(request);
+            SharingHttpContext context = new SharingHttpContext(state);
+            prepare(request, context);
+            try (CloseableHttpResponse response = send(request, context)) {
+                try {
+                    context.close();
+                    handleStatus(response);
+                    Header range = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+                    Matcher m = range != null ? CONTENT_RANGE_PATTERN.matcher(range.getValue()) : null;
+                    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT
+                            || m == null
+                            || !m.matches()
+                            || Long.parseLong(m.group(1)) != start
+                            || Long.parseLong(m.group(2)) != end) {
+                        throw new IOException("Resource " + uri + " changed during segmented download");
+                    }
+                    try (InputStream is = response.getEntity().getContent()) {
+                        write(is, channel, start, end - start + 1L, listener);
+                    }
+                } finally {
+                    EntityUtils.consumeQuietly(response.getEntity());
+                }
+            } finally {
+                requests.remove(request);
+            }
+        }
+
+        /*
+         * The body is only available as a stream, so it is read into a heap buffer; a direct buffer would just add a
+         * copy from the heap array the stream fills
+         */
+        private void write(InputStream source, FileChannel target, long position, long count, TransportListener listener)
+                throws IOException, TransferCancelledException {
+            byte[] array = new byte[SEGMENT_BUFFER_SIZE];
+            ByteBuffer empty = ByteBuffer.allocate(0);
+            long written = 0L;
+            while (written < count) {
+                if (aborted.get()) {
+                    throw new InterruptedIOException("Segmented download of " + uri + " aborted");
+                }
+                int read = source.read(array, 0, (int) Math.min(array.length, count - written));
+                if (read < 0) {
+                    throw new IOException("Premature end of range " + position + '-' + (position + count - 1L)
+                            + " of " + uri);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(array, 0, read);
+                while (buffer.hasRemaining()) {
+                    written += target.write(buffer, position + written);
+                }
+                if (listener != null) {
+                    listener.transportProgressed(empty);
+                }
+            }
+        }
+
+        private void await(Future<?> future, TransportListener listener)
+                throws IOException, TransferCancelledException {
+            ByteBuffer empty = ByteBuffer.allocate(0);
+            while (true) {
+                try {
+                    future.get(1L, TimeUnit.SECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    listener.transportProgressed(empty);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw (IOException) new InterruptedIOException().initCause(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    } else if (e.getCause() instanceof TransferCancelledException) {
+                        throw (TransferCancelledException) e.getCause();
+                    } else if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+
+        private void abort() {
+            aborted.set(true);
+            for (HttpGet request : requests) {
+                request.abort();
+            }
+        }
+
+        /*
+         * The listener digests the data from a heap buffer without copying it, unlike from a direct one
+         */
+        private void replay(Path path, TransportListener listener) throws IOException, TransferCancelledException {
+            ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (channel.read(buffer) >= 0) {
+                    ((Buffer) buffer).flip();
+                    listener.transportProgressed(buffer);
+                    ((Buffer) buffer).clear();
+                }
+            }
+        }
+    }
+
     private class PutTaskEntity extends AbstractHttpEntity {
 
         private final PutTask task;
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.http;
+
+import org.eclipse.aether.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The authentication schemes accepted by the servers, which outlive the repository system sessions. When set as the
+ * {@link #CONFIG_PROP} configuration property of a session, the HTTP transporters remember the stateless scheme (Basic
+ * or Bearer) each server accepted the credentials of a repository with, and send those credentials along with the
+ * first request to that server afterwards, instead of waiting for an authentication challenge.
+ * <p>
+ * Only the names of the schemes are kept, never the credentials. They can optionally be persisted to a file, so they
+ * are shared by consecutive processes as well.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public final class LearnedAuthSchemes {
+
+    /**
+     * The configuration property holding the {@link LearnedAuthSchemes} used by the transporters of a session.
+     */
+    public static final String CONFIG_PROP = "aether.connector.http.learnedAuthSchemes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LearnedAuthSchemes.class);
+
+    private final Path file;
+
+    private final Map<String, String> schemes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new learned schemes, loading the ones of the given file if it exists.
+     *
+     * @param file The file the schemes are persisted to, may be {@code null} to keep them in memory only.
+     */
+    public LearnedAuthSchemes(Path file) {
+        this.file = file;
+        if (file != null) {
+            load();
+        }
+    }
+
+    static boolean isPreemptive(String scheme) {
+        return "basic".equalsIgnoreCase(scheme) || BearerScheme.NAME.equalsIgnoreCase(scheme);
+    }
+
+    /**
+     * Gets the scheme a server accepted the credentials with.
+     *
+     * @param server The URI of the server, i.e. its scheme, host and port, must not be {@code null}.
+     * @return The name of the authentication scheme, or {@code null} if unknown.
+     */
+    public String get(String server) {
+        return schemes.get(requireNonNull(server));
+    }
+
+    /**
+     * Records the scheme a server accepted the credentials with.
+     *
+     * @param server The URI of the server, i.e. its scheme, host and port, must not be {@code null}.
+     * @param scheme The name of the authentication scheme, ignored unless it can be used preemptively.
+     */
+    public void learned(String server, String scheme) {
+        requireNonNull(server);
+        if (isPreemptive(scheme)) {
+            schemes.put(server, scheme);
+        }
+    }
+
+    /**
+     * Forgets the scheme of a server, e.g. after it rejected the credentials sent with it.
+     *
+     * @param server The URI of the server, i.e. its scheme, host and port, must not be {@code null}.
+     */
+    public void forget(String server) {
+        schemes.remove(requireNonNull(server));
+    }
+
+    /**
+     * Writes the learned schemes to the file, if any.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(schemes);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileUtils.writeFile(file, path -> {
+            try (OutputStream output = Files.newOutputStream(path)) {
+                properties.store(output, null);
+            }
+        });
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Ignoring invalid authentication schemes {}: {}", file, e.getMessage());
+            return;
+        }
+        for (String server : properties.stringPropertyNames()) {
+            learned(server, properties.getProperty(server));
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.eclipse.aether.transport.http;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScheme;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.transport.http.GlobalState.CompoundKey;
@@ -70,6 +71,10 @@ final class LocalState implements Closeable {
         return connMgr;
     }
 
+    public boolean claimPreopen(HttpRoute route) {
+        return global != null && global.claimPreopen(connMgr, route);
+    }
+
     public Object getUserToken() {
         if (userToken == this) {
             userToken = (global != null) ? global.getUserToken(userTokenKey) : null;
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.http;
+
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+
+import java.io.InterruptedIOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The retry policy of the HTTP transporters. Requests failing with an I/O error or answered with a status denoting a
+ * temporary unavailability of the server (by default 429, 502, 503 and 504) are retried after an exponential backoff
+ * with full jitter, unless the server asks for a given delay with a {@code Retry-After} header, in which case all the
+ * requests to that host wait for it.
+ * <p>
+ * Retries are bounded by a budget shared by all the transfers to the same host within a session, so a struggling
+ * server is not flooded with retries by concurrent transfers.
+ */
+public final class RetryPolicy {
+
+    private static final String KEY = RetryPolicy.class.getName();
+
+    /*
+     * The fraction of a token given back to the budget by a successful request
+     */
+    private static final double TOKEN_RATIO = 0.1d;
+
+    private static final int MAX_SHIFT = 30;
+
+    private final int maxRetries;
+
+    private final long interval;
+
+    private final long intervalMax;
+
+    private final Set<Integer> statusCodes;
+
+    private final Budget budget;
+
+    public RetryPolicy(RepositorySystemSession session, RemoteRepository repository) {
+        this.maxRetries = Math.max(
+                0,
+                ConfigUtils.getInteger(
+                        session,
+                        ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_COUNT,
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT + "." + repository.getId(),
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT));
+        this.interval = Math.max(
+                0L,
+                ConfigUtils.getLong(
+                        session,
+                        ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_INTERVAL,
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_INTERVAL + "." + repository.getId(),
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_INTERVAL));
+        this.intervalMax = Math.max(
+                interval,
+                ConfigUtils.getLong(
+                        session,
+                        ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_INTERVAL_MAX,
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_INTERVAL_MAX + "." + repository.getId(),
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_INTERVAL_MAX));
+        this.statusCodes = parseStatusCodes(ConfigUtils.getString(
+                session,
+                ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE,
+                ConfigurationProperties.HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE + "." + repository.getId(),
+                ConfigurationProperties.HTTP_RETRY_HANDLER_SERVICE_UNAVAILABLE));
+        int tokens = Math.max(
+                1,
+                ConfigUtils.getInteger(
+                        session,
+                        ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_BUDGET,
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_BUDGET + "." + repository.getId(),
+                        ConfigurationProperties.HTTP_RETRY_HANDLER_BUDGET));
+        this.budget = getBudget(session, repository.getHost(), tokens);
+    }
+
+    private static Set<Integer> parseStatusCodes(String codes) {
+        Set<Integer> result = new HashSet<>();
+        for (String code : codes.split(",")) {
+            code = code.trim();
+            if (!code.isEmpty()) {
+                try {
+                    result.add(Integer.valueOf(code));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid HTTP status code " + code, e);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Budget getBudget(RepositorySystemSession session, String host, int tokens) {
+        RepositoryCache repoCache = session.getCache();
+        if (repoCache == null) {
+            return new Budget(tokens);
+        }
+        Object budgets = repoCache.get(session, KEY);
+        if (!(budgets instanceof ConcurrentMap)) {
+            synchronized (RetryPolicy.class) {
+                budgets = repoCache.get(session, KEY);
+                if (!(budgets instanceof ConcurrentMap)) {
+                    budgets = new ConcurrentHashMap<String, Budget>();
+                    repoCache.put(session, KEY, budgets);
+                }
+            }
+        }
+        return ((ConcurrentMap<String, Budget>) budgets).computeIfAbsent(host, h -> new Budget(tokens));
+    }
+
+    /**
+     * Gets the maximum number of times a request is retried.
+     *
+     * @return The maximum number of retries.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Tells whether requests answered with the given status should be retried.
+     *
+     * @param statusCode The HTTP status code of the response.
+     * @return {@code true} if the status denotes a temporary unavailability of the server, {@code false} otherwise.
+     */
+    public boolean isRetryable(int statusCode) {
+        return statusCodes.contains(statusCode);
+    }
+
+    /**
+     * Records a failed attempt and computes the delay before the next one.
+     *
+     * @param attempt The number of the failed attempt, starting with 1.
+     * @param retryAfter The value of the {@code Retry-After} header of the response, may be {@code null}.
+     * @return The delay in milliseconds before retrying, or {@code -1} if the request should not be retried.
+     */
+    public long failed(int attempt, String retryAfter) {
+        boolean allowed = budget.fail();
+        if (attempt > maxRetries || !allowed) {
+            return -1L;
+        }
+        long requested = retryAfter != null ? parseRetryAfter(retryAfter) : -1L;
+        if (requested > intervalMax) {
+            return -1L;
+        }
+        if (requested >= 0L) {
+            return budget.delay(requested, true);
+        }
+        long cap = Math.min(intervalMax, interval << Math.min(attempt - 1, MAX_SHIFT));
+        return budget.delay(cap > 0L ? ThreadLocalRandom.current().nextLong(cap + 1L) : 0L, false);
+    }
+
+    /**
+     * Records a successful request, i.e. one the server answered without asking to retry it.
+     */
+    public void succeeded() {
+        budget.succeed();
+    }
+
+    /**
+     * Waits until the host accepts requests again, if it asked to be left alone for a while.
+     *
+     * @throws InterruptedIOException If the current thread got interrupted while waiting.
+     */
+    public void await() throws InterruptedIOException {
+        sleep(budget.delay(0L, false));
+    }
+
+    /**
+     * Sleeps for the given delay.
+     *
+     * @param delay The delay in milliseconds, may be zero.
+     * @throws InterruptedIOException If the current thread got interrupted while sleeping.
+     */
+    public static void sleep(long delay) throws InterruptedIOException {
+        if (delay > 0L) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (InterruptedIOException) new InterruptedIOException("Interrupted while waiting to retry")
+                        .initCause(e);
+            }
+        }
+    }
+
+    /*
+     * Either delta-seconds or an HTTP date, see RFC 9110 section 10.2.3
+     */
+    private static long parseRetryAfter(String retryAfter) {
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0L, Long.parseLong(value) * 1000L);
+        } catch (NumberFormatException e) {
+            // not delta-seconds
+        }
+        try {
+            Instant date = Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value));
+            return Math.max(0L, date.toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeException e) {
+            return -1L;
+        }
+    }
+
+    static final class Budget {
+
+        private final double maxTokens;
+
+        private double tokens;
+
+        private long notBefore;
+
+        Budget(int tokens) {
+            this.maxTokens = tokens;
+            this.tokens = tokens;
+        }
+
+        synchronized boolean fail() {
+            tokens = Math.max(0d, tokens - 1d);
+            return tokens > maxTokens / 2d;
+        }
+
+        synchronized void succeed() {
+            tokens = Math.min(maxTokens, tokens + TOKEN_RATIO);
+        }
+
+        synchronized long delay(long delay, boolean requested) {
+            long now = System.currentTimeMillis();
+            if (requested) {
+                notBefore = Math.max(notBefore, now + delay);
+            }
+            return Math.max(delay, notBefore - now);
+        }
+    }
+}
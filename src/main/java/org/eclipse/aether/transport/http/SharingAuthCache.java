@@ -41,7 +41,7 @@ final class SharingAuthCache implements AuthCache {
     }
 
     @SuppressWarnings("checkstyle:magicnumber")
-    private static HttpHost toKey(HttpHost host) {
+    static HttpHost toKey(HttpHost host) {
         if (host.getPort() <= 0) {
             int port = host.getSchemeName().equalsIgnoreCase("https") ? 443 : 80;
             return new HttpHost(host.getHostName(), port, host.getSchemeName());
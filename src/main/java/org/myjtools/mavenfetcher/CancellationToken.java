@@ -0,0 +1,35 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+
+/**
+ * Token that allows to cancel a fetch operation from another thread.
+ * <p>
+ * Cancellation is cooperative: once cancelled, the fetch operation stops expanding the
+ * dependency graph, aborts the transfers in progress and returns a partial result.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+
+    /**
+     * Request the cancellation of the fetch operations using this token
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+
+    /**
+     * @return Whether the cancellation has been requested
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+import java.time.Duration;
+
+
+/**
+ * Immutable snapshot of the pooled HTTP connections of a fetcher, shared by all its fetch
+ * operations
+ * @see MavenFetcher#connectionPoolStatistics()
+ */
+public class ConnectionPoolStatistics {
+
+    public static final ConnectionPoolStatistics EMPTY = new ConnectionPoolStatistics(
+        0, 0, 0, 0, Duration.ZERO, 0, Duration.ZERO
+    );
+
+    private final int leasedConnections;
+    private final int availableConnections;
+    private final int pendingRequests;
+    private final long openedConnections;
+    private final Duration meanConnectTime;
+    private final long handshakes;
+    private final Duration meanHandshakeTime;
+
+
+    public ConnectionPoolStatistics(
+        int leasedConnections,
+        int availableConnections,
+        int pendingRequests,
+        long openedConnections,
+        Duration meanConnectTime,
+        long handshakes,
+        Duration meanHandshakeTime
+    ) {
+        this.leasedConnections = leasedConnections;
+        this.availableConnections = availableConnections;
+        this.pendingRequests = pendingRequests;
+        this.openedConnections = openedConnections;
+        this.meanConnectTime = meanConnectTime;
+        this.handshakes = handshakes;
+        this.meanHandshakeTime = meanHandshakeTime;
+    }
+
+
+    /**
+     * The number of connections in use by a transfer when the snapshot was taken
+     */
+    public int leasedConnections() {
+        return leasedConnections;
+    }
+
+
+    /**
+     * The number of idle connections kept alive for further transfers
+     */
+    public int availableConnections() {
+        return availableConnections;
+    }
+
+
+    /**
+     * The number of transfers waiting for a connection when the snapshot was taken
+     */
+    public int pendingRequests() {
+        return pendingRequests;
+    }
+
+
+    /**
+     * The number of connections opened so far
+     */
+    public long openedConnections() {
+        return openedConnections;
+    }
+
+
+    /**
+     * The mean time to open a connection, including its TLS handshake if any
+     */
+    public Duration meanConnectTime() {
+        return meanConnectTime;
+    }
+
+
+    /**
+     * The number of TLS handshakes performed so far
+     */
+    public long handshakes() {
+        return handshakes;
+    }
+
+
+    /**
+     * The mean time of the TLS handshakes
+     */
+    public Duration meanHandshakeTime() {
+        return meanHandshakeTime;
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%d leased, %d available, %d pending, %d opened (%d ms), %d handshakes (%d ms)",
+            leasedConnections,
+            availableConnections,
+            pendingRequests,
+            openedConnections,
+            meanConnectTime.toMillis(),
+            handshakes,
+            meanHandshakeTime.toMillis()
+        );
+    }
+
+}
@@ -4,16 +4,20 @@
 package org.myjtools.mavenfetcher;
 
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.*;
 import java.util.stream.Stream;
 
 /**
  * This class contains data regarding a fetched artifact, such as its coordinates and
  * physical path in the local repository.
- *
+ * <p>
+ * Fetched artifacts form a directed acyclic graph: an artifact required by several others
+ * is represented by a single instance shared by all of them.
+ * <p>
+ * Two fetched artifacts are equal when they have the same coordinates, regardless of their
+ * dependencies, so comparing or hashing them never traverses the graph. Compare the
+ * {@link #dependencies()} explicitly to tell apart two graphs.
  */
 public class FetchedArtifact {
 
@@ -21,7 +25,11 @@ public class FetchedArtifact {
     private final String artifactId;
     private final String version;
     private final Path path;
+    private final long size;
+    private final Instant lastModified;
+    private final boolean complete;
     private final List<FetchedArtifact> dependencies;
+    private final int hash;
 
 
     public FetchedArtifact(
@@ -30,12 +38,43 @@ public class FetchedArtifact {
         String version,
         Path path,
         List<FetchedArtifact> dependencies
+    ) {
+        this(groupId, artifactId, version, path, -1, null, dependencies);
+    }
+
+
+    public FetchedArtifact(
+        String groupId,
+        String artifactId,
+        String version,
+        Path path,
+        long size,
+        Instant lastModified,
+        List<FetchedArtifact> dependencies
+    ) {
+        this(groupId, artifactId, version, path, size, lastModified, true, dependencies);
+    }
+
+
+    public FetchedArtifact(
+        String groupId,
+        String artifactId,
+        String version,
+        Path path,
+        long size,
+        Instant lastModified,
+        boolean complete,
+        List<FetchedArtifact> dependencies
     ) {
         this.groupId = groupId;
         this.artifactId = artifactId;
         this.version = version;
         this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.complete = complete;
         this.dependencies = dependencies;
+        this.hash = Objects.hash(groupId, artifactId, version);
     }
 
 
@@ -84,13 +123,38 @@ public class FetchedArtifact {
 
 
     /**
-     * The fetched artifacts that are direct or inherited dependencies of this artifact
+     * The fetched artifacts that are direct or inherited dependencies of this artifact,
+     * each one included once, and every artifact before its own dependencies
      */
     public Stream<FetchedArtifact> allDepedencies() {
-        return Stream.concat(
-            dependencies(),
-            dependencies().flatMap(FetchedArtifact::allDepedencies)
-        );
+        return withDependencies(dependencies).stream();
+    }
+
+
+    /**
+     * Sort the given artifacts along with all their dependencies, so that every artifact
+     * is included once and before its own dependencies
+     */
+    public static List<FetchedArtifact> withDependencies(List<FetchedArtifact> artifacts) {
+        Set<FetchedArtifact> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<FetchedArtifact> sorted = new ArrayList<>();
+        // reversed post-order, iterating backwards to keep the declaration order when possible
+        for (int i = artifacts.size() - 1; i >= 0; i--) {
+            postOrder(artifacts.get(i), visited, sorted);
+        }
+        Collections.reverse(sorted);
+        return sorted;
+    }
+
+
+    private static void postOrder(FetchedArtifact artifact, Set<FetchedArtifact> visited, List<FetchedArtifact> sorted) {
+        if (!visited.add(artifact)) {
+            return;
+        }
+        for (int i = artifact.dependencies.size() - 1; i >= 0; i--) {
+            postOrder(artifact.dependencies.get(i), visited, sorted);
+        }
+        sorted.add(artifact);
     }
 
 
@@ -102,13 +166,39 @@ public class FetchedArtifact {
     }
 
 
+    /**
+     * The size in bytes of the physical file, or -1 if unknown
+     */
+    public long size() {
+        return size;
+    }
+
+
+    /**
+     * The last modification time of the physical file, or null if unknown
+     */
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+
+    /**
+     * Whether all the dependencies of the artifact, direct or inherited, were fetched.
+     * An artifact is incomplete when its fetch operation was cancelled before expanding
+     * its dependencies, or when some of them could not be fetched.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+
     @Override
     public String toString() {
-        return toString(0, new StringBuilder()).toString();
+        return toString(0, new StringBuilder(), Collections.newSetFromMap(new IdentityHashMap<>())).toString();
     }
 
 
-    private StringBuilder toString(int level, StringBuilder string) {
+    private StringBuilder toString(int level, StringBuilder string, Set<FetchedArtifact> printed) {
         for (int i = 0; i < level; i++) {
             string.append("   ");
         }
@@ -117,10 +207,17 @@ public class FetchedArtifact {
             .append(coordinates())
             .append("  [")
             .append(path)
-            .append("]")
-            .append("\n");
+            .append("]");
+        if (!complete) {
+            string.append(" (incomplete)");
+        }
+        // shared dependencies are expanded only the first time
+        if (!printed.add(this) && !dependencies.isEmpty()) {
+            return string.append(" (*)\n");
+        }
+        string.append("\n");
         for (FetchedArtifact child : dependencies) {
-            child.toString(level + 1, string);
+            child.toString(level + 1, string, printed);
         }
         return string;
     }
@@ -131,11 +228,11 @@ public class FetchedArtifact {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FetchedArtifact that = (FetchedArtifact) o;
-        return Objects.equals(groupId, that.groupId) && Objects.equals(artifactId, that.artifactId) && Objects.equals(version, that.version) && Objects.equals(dependencies, that.dependencies);
+        return hash == that.hash && Objects.equals(groupId, that.groupId) && Objects.equals(artifactId, that.artifactId) && Objects.equals(version, that.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(groupId, artifactId, version, dependencies);
+        return hash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+
+/**
+ * Immutable distribution of the latencies of a set of transfers, grouped in buckets
+ * with fixed upper bounds.
+ */
+public class LatencyHistogram {
+
+    private final long[] upperBounds;
+    private final long[] counts;
+    private final long count;
+    private final long totalMillis;
+
+
+    /**
+     * @param upperBounds The upper bound, in milliseconds, of each bucket but the last one,
+     *                    which is unbounded
+     * @param counts The number of transfers within each bucket
+     * @param totalMillis The sum of all the latencies, in milliseconds
+     */
+    public LatencyHistogram(long[] upperBounds, long[] counts, long totalMillis) {
+        if (counts.length != upperBounds.length + 1) {
+            throw new IllegalArgumentException("Histogram must have one bucket more than upper bounds");
+        }
+        this.upperBounds = upperBounds.clone();
+        this.counts = counts.clone();
+        this.count = Arrays.stream(counts).sum();
+        this.totalMillis = totalMillis;
+    }
+
+
+    /**
+     * @return The upper bound, in milliseconds, of each bucket but the last one
+     */
+    public long[] upperBounds() {
+        return upperBounds.clone();
+    }
+
+
+    /**
+     * @return The number of transfers within each bucket
+     */
+    public long[] counts() {
+        return counts.clone();
+    }
+
+
+    /**
+     * @return The total number of transfers
+     */
+    public long count() {
+        return count;
+    }
+
+
+    /**
+     * @return The average latency, or zero if there were no transfers
+     */
+    public Duration mean() {
+        return count == 0 ? Duration.ZERO : Duration.ofMillis(totalMillis / count);
+    }
+
+
+    /**
+     * @param percentile A value between 0 and 100
+     * @return The upper bound of the bucket containing the given percentile, or null
+     * if it falls in the unbounded bucket
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long accumulated = 0;
+        for (int i = 0; i < upperBounds.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= target) {
+                return Duration.ofMillis(upperBounds[i]);
+            }
+        }
+        return null;
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            string.append(i < upperBounds.length ? "<=" + upperBounds[i] + "ms" : ">" + upperBounds[i - 1] + "ms")
+                .append(':')
+                .append(counts[i])
+                .append(i < counts.length - 1 ? " " : "");
+        }
+        return string.toString();
+    }
+
+}
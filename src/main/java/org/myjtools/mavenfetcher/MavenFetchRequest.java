@@ -4,6 +4,9 @@
 package org.myjtools.mavenfetcher;
 
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -20,6 +23,9 @@ public class MavenFetchRequest {
     private Collection<String> scopes = Arrays.asList("compile", "provided");
     private boolean retrievingOptionals = false;
     private List<String> excludedArtifacts = Collections.unmodifiableList(Arrays.asList());
+    private Path lockfile;
+    private Instant deadline;
+    private CancellationToken cancellationToken;
 
 
     /**
@@ -54,8 +60,9 @@ public class MavenFetchRequest {
 
     /**
      * Excludes one or more artifacts from the request, preventing them to be
-     * fetched.
-     * @param artifacts The artifacts to be excluded
+     * fetched along with their own dependencies.
+     * @param artifacts The artifacts to be excluded, in form of {@literal <groupId>:<artifactId>};
+     *                  either part can be the wildcard <code>*</code>
      * @return The same instance
      */
     public MavenFetchRequest excludingArtifacts(String... artifacts) {
@@ -74,6 +81,53 @@ public class MavenFetchRequest {
     }
 
 
+    /**
+     * Use the given lockfile for this request. If the file exists and was recorded for
+     * an equivalent request, the recorded artifacts are fetched directly, without
+     * collecting dependencies again. Otherwise, the request is resolved normally and,
+     * if no error occurs, the result is recorded in the file.
+     * @param lockfile The path of the lockfile
+     * @return The same instance
+     */
+    public MavenFetchRequest lockfile(Path lockfile) {
+        this.lockfile = lockfile;
+        return this;
+    }
+
+
+    /**
+     * Set the instant by which the request must be completed. Once reached, the fetch
+     * operation is cancelled and a partial result is returned.
+     * @param deadline The deadline of the request
+     * @return The same instance
+     */
+    public MavenFetchRequest deadline(Instant deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+
+    /**
+     * Set the maximum time, counted from now, to complete the request
+     * @see #deadline(Instant)
+     * @return The same instance
+     */
+    public MavenFetchRequest timeout(Duration timeout) {
+        return deadline(Instant.now().plus(timeout));
+    }
+
+
+    /**
+     * Set a token that allows to cancel the request while it is being fetched. Once
+     * cancelled, a partial result is returned.
+     * @return The same instance
+     */
+    public MavenFetchRequest cancellation(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        return this;
+    }
+
+
     /**
      * @return The request artifact coordinates, in form of {@literal <groupId>:<artifactId>:<version>}
      */
@@ -105,4 +159,37 @@ public class MavenFetchRequest {
         return excludedArtifacts;
     }
 
+
+    /**
+     * @return The lockfile used by the request, or null if none
+     */
+    public Path lockfile() {
+        return lockfile;
+    }
+
+
+    /**
+     * @return The deadline of the request, or null if none
+     */
+    public Instant deadline() {
+        return deadline;
+    }
+
+
+    /**
+     * @return The cancellation token of the request, or null if none
+     */
+    public CancellationToken cancellationToken() {
+        return cancellationToken;
+    }
+
+
+    /**
+     * @return Whether the request has been cancelled or its deadline has been reached
+     */
+    public boolean isCancelled() {
+        return (cancellationToken != null && cancellationToken.isCancelled()) ||
+            (deadline != null && System.currentTimeMillis() >= deadline.toEpochMilli());
+    }
+
 }
@@ -14,9 +14,21 @@ public interface MavenFetchResult {
     /** @return A new stream with the fetched artifacts requested */
     Stream<FetchedArtifact> artifacts();
 
-    /** @return A new stream with all fetched artifacts, includind dependencies */
+    /**
+     * @return A new stream with all fetched artifacts, including dependencies, each one
+     * once and before its own dependencies
+     */
     Stream<FetchedArtifact> allArtifacts();
 
+    /**
+     * @return true if every requested artifact was fetched along with all its dependencies;
+     * a cancelled fetch operation returns an incomplete result
+     * @see FetchedArtifact#isComplete()
+     */
+    default boolean isComplete() {
+        return true;
+    }
+
     /** @return true if any error has ocurred during the fetching */
     boolean hasErrors();
 
@@ -25,4 +37,12 @@ public interface MavenFetchResult {
      */
     Stream<Exception> errors();
 
+    /**
+     * @return An immutable snapshot of the transfers performed by the fetch operation, empty
+     * unless overridden
+     */
+    default TransferStatistics transferStatistics() {
+        return TransferStatistics.EMPTY;
+    }
+
 }
@@ -7,6 +7,7 @@ package org.myjtools.mavenfetcher;
 import org.apache.maven.repository.internal.DefaultVersionResolver;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.codehaus.plexus.util.StringUtils;
+import org.eclipse.aether.ConfigurationProperties;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.collection.DependencyCollectionException;
@@ -17,19 +18,48 @@ import org.eclipse.aether.repository.*;
 import org.eclipse.aether.resolution.ArtifactDescriptorException;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
+import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.eclipse.aether.transport.http.ConnectionStatistics;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.transport.http.LearnedAuthSchemes;
+import org.eclipse.aether.transport.jdk.JdkHttpTransporterFactory;
+import org.eclipse.aether.connector.basic.NotFoundCache;
+import org.eclipse.aether.util.concurrency.ExecutorUtils;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 import org.eclipse.aether.util.repository.AuthenticationBuilder;
 import org.eclipse.aether.util.repository.DefaultProxySelector;
+import org.myjtools.mavenfetcher.internal.LatestVersionResolver;
+import org.myjtools.mavenfetcher.internal.LockedArtifactFetcher;
 import org.myjtools.mavenfetcher.internal.MavenArtifactFetcher;
+import org.myjtools.mavenfetcher.internal.MavenFetchLockfile;
+import org.myjtools.mavenfetcher.internal.MavenFetcherCache;
 import org.myjtools.mavenfetcher.internal.MavenTransferListener;
+import org.myjtools.mavenfetcher.internal.RepositoryRanking;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.myjtools.mavenfetcher.MavenFetcherProperties.*;
@@ -38,21 +68,94 @@ import static org.myjtools.mavenfetcher.MavenFetcherProperties.*;
 /**
  * This class allows to fetch Maven artifacts from one or several remote repositories.
  * <p>
- * <em>This class is mutable and not thread-safe.</em>
+ * Once configured, a fetcher is intended to be long-lived and shared: every fetch operation
+ * reuses the descriptors, models and HTTP connections cached by the previous ones. Only
+ * successful results are shared: a descriptor that failed to load is requested again by the
+ * next fetch operation, and versions are resolved anew by each one according to the update
+ * policy. Those cached entries are bounded and expire after a while (see
+ * {@link #cache(int, Duration)}), and are discarded whenever the configuration changes.
+ * Use {@link #close()} to release the HTTP connections when the fetcher is no longer needed.
+ * <p>
+ * <em>This class is thread-safe.</em> Fetch operations can be invoked concurrently, each one
+ * using the configuration present at the moment it was invoked.
  */
-public class MavenFetcher {
+public class MavenFetcher implements AutoCloseable {
+
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final Duration DEFAULT_CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    /*
+     * A prefetch operation is split into batches of requests fetched concurrently. Each
+     * batch collects and downloads on its own, so while some batches are reading
+     * descriptors others are already downloading artifacts; all of them share the cache.
+     */
+    private static final int PREFETCH_BATCH_SIZE = 16;
+    private static final int PREFETCH_PARALLELISM = 4;
+    private static final Duration ASYNC_KEEP_ALIVE = Duration.ofSeconds(60);
+
+    /*
+     * The HTTP/2 transporter is enabled by raising its priority over the default one.
+     * Since concurrent transfers to the same host share a single connection, more of
+     * them are run at once.
+     */
+    private static final String CONFIG_PROP_HTTP2_PRIORITY =
+        ConfigurationProperties.PREFIX_PRIORITY + JdkHttpTransporterFactory.class.getName();
+    private static final float HTTP2_PRIORITY = 10.0f;
+    private static final String CONFIG_PROP_CONNECTOR_THREADS = "aether.connector.basic.threads";
+    private static final int HTTP2_CONNECTOR_THREADS = 32;
+
+    /*
+     * Segmented downloads are performed by the default HTTP transporter, since HTTP/2
+     * would multiplex every range over the same connection
+     */
+    private static final String CONFIG_PROP_HTTP_SEGMENTS = "aether.connector.http.segments";
+    private static final String CONFIG_PROP_HTTP_SEGMENT_THRESHOLD = "aether.connector.http.segmentThreshold";
+    private static final String CONFIG_PROP_HEDGING_MIRROR = "aether.connector.hedging.mirror";
+    private static final String CONFIG_PROP_HEDGING_DELAY = "aether.connector.hedging.delay";
+    private static final String CONFIG_PROP_HTTP_PREOPEN_CONNECTIONS = "aether.connector.http.preopenConnections";
 
     private final List<RemoteRepository> remoteRepositories = new ArrayList<RemoteRepository>(Arrays.asList(
             createRemoteRepository("maven-central", "https://repo.maven.apache.org/maven2"))
     );
 
-    private RepositorySystem system;
+    private volatile RepositorySystem system;
+    private volatile TransporterProvider transporterProvider;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private Duration cacheTimeToLive = DEFAULT_CACHE_TIME_TO_LIVE;
+    private MavenFetcherCache cache = new MavenFetcherCache(cacheSize, cacheTimeToLive.toMillis());
+    private LatestVersionResolver latestVersions = new LatestVersionResolver(0);
     private LocalRepository localRepository;
     private String proxyURL;
     private String proxyUsername;
     private String proxyPassword;
     private List<String> proxyExceptions;
-    private Logger logger = LoggerFactory.getLogger(MavenFetcher.class);
+    private boolean http2;
+    private String updatePolicy;
+    private int segments = 1;
+    private long segmentThreshold;
+    private int maxRetries = ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_COUNT;
+    private Duration retryBackoff = Duration.ofMillis(ConfigurationProperties.DEFAULT_HTTP_RETRY_HANDLER_INTERVAL);
+    private List<String> hedgedRepositories = Collections.emptyList();
+    private RepositoryRanking repositoryRanking;
+    private NotFoundCache notFoundCache;
+    private Duration hedgingDelay;
+    private int preopenConnections;
+    private final Set<String> preemptiveAuthRepositories = new HashSet<>();
+    private LearnedAuthSchemes learnedAuthSchemes = new LearnedAuthSchemes(null);
+    private volatile Logger logger = LoggerFactory.getLogger(MavenFetcher.class);
+
+    /*
+     * Fetch operations block on the network, so they are not run on the common fork-join
+     * pool; idle threads are released after a while, so a fetcher need not be closed
+     */
+    private final Executor asyncExecutor = new ThreadPoolExecutor(
+        0,
+        Integer.MAX_VALUE,
+        ASYNC_KEEP_ALIVE.toMillis(),
+        TimeUnit.MILLISECONDS,
+        new SynchronousQueue<>(),
+        new WorkerThreadFactory("MavenFetcher-async-")
+    );
 
     private static RemoteRepository createRemoteRepository(String id, String url) {
         Objects.requireNonNull(id);
@@ -123,6 +226,21 @@ public class MavenFetcher {
         new URI(uri);
     }
 
+    private static void checkUpdatePolicy(String updatePolicy) {
+        switch (updatePolicy) {
+            case RepositoryPolicy.UPDATE_POLICY_ALWAYS:
+            case RepositoryPolicy.UPDATE_POLICY_DAILY:
+            case RepositoryPolicy.UPDATE_POLICY_NEVER:
+                return;
+            default:
+                String prefix = RepositoryPolicy.UPDATE_POLICY_INTERVAL + ':';
+                if (updatePolicy.startsWith(prefix) && updatePolicy.substring(prefix.length()).matches("\\d+")) {
+                    return;
+                }
+                throw new IllegalArgumentException("Invalid update policy: " + updatePolicy);
+        }
+    }
+
     /**
      * Set the logger for this object
      */
@@ -134,37 +252,222 @@ public class MavenFetcher {
     /**
      * Set the URL for the net proxy
      */
-    public MavenFetcher proxyURL(String url) throws URISyntaxException {
+    public synchronized MavenFetcher proxyURL(String url) throws URISyntaxException {
         checkURI(url);
         checkNonNull(url);
         this.proxyURL = url;
+        invalidateCache();
         return this;
     }
 
     /**
      * Set the credentials for the next proxy
      */
-    public MavenFetcher proxyCredentials(String username, String password) {
+    public synchronized MavenFetcher proxyCredentials(String username, String password) {
         checkNonNull(username, password);
         this.proxyUsername = username;
         this.proxyPassword = password;
+        invalidateCache();
         return this;
     }
 
     /**
      * Set exceptions for the next proxy
      */
-    public MavenFetcher proxyExceptions(Collection<String> exceptions) {
+    public synchronized MavenFetcher proxyExceptions(Collection<String> exceptions) {
         checkNonNull(exceptions);
         this.proxyExceptions = new ArrayList<>(exceptions);
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Use HTTP/2 to access the remote repositories, multiplexing the concurrent transfers
+     * to the same host over a single connection. It requires Java 11 or later; otherwise,
+     * or when a server does not support it, HTTP/1.1 is used instead.
+     */
+    public synchronized MavenFetcher http2(boolean enabled) {
+        this.http2 = enabled;
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Download the files larger than the given size in several ranges fetched concurrently,
+     * each one over its own connection. The whole file is verified against its checksum once
+     * all the ranges are written. It has no effect when HTTP/2 is enabled.
+     * @param segments The number of ranges fetched concurrently, {@code 1} to disable it
+     * @param threshold The size, in bytes, above which a file is segmented
+     */
+    public synchronized MavenFetcher segmentedDownloads(int segments, long threshold) {
+        if (segments < 1) {
+            throw new IllegalArgumentException("Number of segments must be positive");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Segment threshold must be positive");
+        }
+        this.segments = segments;
+        this.segmentThreshold = threshold;
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Retry the requests that failed with an I/O error or were rejected by an overloaded server
+     * (status 429, 502, 503 or 504), waiting between attempts either the delay requested by the
+     * server or a random delay whose bound doubles on each attempt. Retries are limited per host,
+     * so concurrent transfers do not overwhelm a failing server.
+     * @param maxRetries The maximum number of retries of each request, {@code 0} to disable them
+     * @param initialBackoff The bound of the delay before the first retry
+     */
+    public synchronized MavenFetcher retries(int maxRetries, Duration initialBackoff) {
+        checkNonNull(initialBackoff);
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Number of retries cannot be negative");
+        }
+        if (initialBackoff.isNegative()) {
+            throw new IllegalArgumentException("Retry backoff cannot be negative");
+        }
+        this.maxRetries = maxRetries;
+        this.retryBackoff = initialBackoff;
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Order the remote repositories by their observed performance instead of by their priority,
+     * so artifacts are looked up in the fastest healthy repository first. The latency, throughput
+     * and error rate of every repository are measured along the fetch operations, giving more
+     * weight to the recent ones. Artifacts recorded in a lockfile are still looked up first in
+     * the repository they were fetched from.
+     */
+    public synchronized MavenFetcher adaptiveRepositoryOrder(boolean enabled) {
+        if (enabled != (repositoryRanking != null)) {
+            this.repositoryRanking = enabled ? new RepositoryRanking() : null;
+        }
+        return this;
+    }
+
+    /**
+     * Declare the given remote repositories as mirrors of the same content, in order of preference.
+     * A download from one of them that does not start within the usual time (the 95th percentile
+     * of its latencies) is requested from the next one as well, keeping the first to respond.
+     * @param initialDelay The time to wait before hedging a download while the latencies of the
+     *                     repository are still unknown
+     * @param repositoryIds The identifiers of the mirror repositories, at least two, or none to
+     *                      disable hedging
+     */
+    public synchronized MavenFetcher hedgedRequests(Duration initialDelay, String... repositoryIds) {
+        checkNonNull(initialDelay);
+        checkNonNull((Object[]) repositoryIds);
+        if (initialDelay.isNegative()) {
+            throw new IllegalArgumentException("Hedging delay cannot be negative");
+        }
+        if (repositoryIds.length == 1) {
+            throw new IllegalArgumentException("At least two repositories are required to hedge requests");
+        }
+        for (String repositoryId : repositoryIds) {
+            if (remoteRepositories.stream().noneMatch(repository -> repository.getId().equals(repositoryId))) {
+                throw new IllegalArgumentException("Unknown remote repository: " + repositoryId);
+            }
+        }
+        this.hedgedRepositories = Arrays.asList(repositoryIds.clone());
+        this.hedgingDelay = initialDelay;
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Open the given number of HTTP connections to each remote repository in background, so the
+     * first transfers do not wait for the connections and their TLS handshakes. Connections are
+     * opened as soon as this method is called, so it should be invoked once the fetcher is
+     * configured; repositories added afterwards are warmed up by the first fetch operation
+     * using them. It has no effect on repositories accessed through a proxy, nor when HTTP/2
+     * is enabled.
+     * @param connections The number of connections per repository, {@code 0} to disable it
+     * @see #connectionPoolStatistics()
+     */
+    public synchronized MavenFetcher preopenConnections(int connections) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("Number of connections cannot be negative");
+        }
+        this.preopenConnections = connections;
+        if (connections > 0) {
+            CompletableFuture.runAsync(this::warmUp, asyncExecutor);
+        }
+        return this;
+    }
+
+    /**
+     * Create a transporter for each remote repository, which opens its connections ahead
+     */
+    private void warmUp() {
+        DefaultRepositorySystemSession session;
+        List<RemoteRepository> repositories;
+        synchronized (this) {
+            session = newSession(null);
+            repositories = new ArrayList<>(remoteRepositories);
+        }
+        for (RemoteRepository repository : repositories) {
+            if (session.getProxySelector() != null) {
+                repository = new RemoteRepository.Builder(repository)
+                    .setProxy(session.getProxySelector().getProxy(repository))
+                    .build();
+            }
+            try {
+                transporterProvider().newTransporter(session, repository).close();
+            } catch (NoTransporterException e) {
+                logger.debug("Cannot open connections to {} : {}", repository.getUrl(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the current state of the pooled HTTP connections shared by the fetch operations.
+     * Connections are not pooled when HTTP/2 is enabled.
+     */
+    public ConnectionPoolStatistics connectionPoolStatistics() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        synchronized (this) {
+            session.setCache(cache);
+        }
+        ConnectionStatistics statistics = ConnectionStatistics.get(session);
+        if (statistics == null) {
+            return ConnectionPoolStatistics.EMPTY;
+        }
+        long connections = statistics.getConnections();
+        long handshakes = statistics.getHandshakes();
+        return new ConnectionPoolStatistics(
+            statistics.getLeased(),
+            statistics.getAvailable(),
+            statistics.getPending(),
+            connections,
+            Duration.ofNanos(connections == 0 ? 0 : statistics.getConnectNanos() / connections),
+            handshakes,
+            Duration.ofNanos(handshakes == 0 ? 0 : statistics.getHandshakeNanos() / handshakes)
+        );
+    }
+
+    /**
+     * Set how often the metadata of the remote repositories is checked for updates, overriding
+     * the policy of each repository. Accepted values are {@code always}, {@code daily},
+     * {@code never} and {@code interval:<minutes>}. Refreshed metadata is downloaded again only
+     * if it was modified since the last check.
+     */
+    public synchronized MavenFetcher updatePolicy(String updatePolicy) {
+        checkNonNull(updatePolicy);
+        checkUpdatePolicy(updatePolicy);
+        this.updatePolicy = updatePolicy;
+        invalidateCache();
         return this;
     }
 
     /**
      * Set the local repository path
      */
-    public MavenFetcher localRepositoryPath(String localRepositoryPath) {
+    public synchronized MavenFetcher localRepositoryPath(String localRepositoryPath) {
         this.localRepository = new LocalRepository(localRepositoryPath);
+        invalidateCache();
         return this;
     }
 
@@ -184,20 +487,28 @@ public class MavenFetcher {
      * Use this method if you want to restrict artifact downloading to a set
      * of private repositories,
      */
-    public MavenFetcher clearRemoteRepositories() {
+    public synchronized MavenFetcher clearRemoteRepositories() {
         this.remoteRepositories.clear();
+        this.preemptiveAuthRepositories.clear();
+        invalidateCache();
         return this;
     }
 
     /**
      * Add a remote repository
      */
-    public MavenFetcher addRemoteRepository(Repository repository) {
+    public synchronized MavenFetcher addRemoteRepository(Repository repository) {
         if (repository.priority() > -1) {
-            this.remoteRepositories.add(repository.priority(), parseRemoteRepository(repository.toString()));
+            this.remoteRepositories.add(repository.priority(), repository.toRemoteRepository());
+        } else {
+            this.remoteRepositories.add(repository.toRemoteRepository());
+        }
+        if (repository.isPreemptiveAuthentication()) {
+            this.preemptiveAuthRepositories.add(repository.id());
         } else {
-            this.remoteRepositories.add(parseRemoteRepository(repository.toString()));
+            this.preemptiveAuthRepositories.remove(repository.id());
         }
+        invalidateCache();
         return this;
     }
 
@@ -211,7 +522,7 @@ public class MavenFetcher {
     /**
      * @return A list with the string representation of the configured remote repositories
      */
-    public List<String> remoteRepositories() {
+    public synchronized List<String> remoteRepositories() {
         return this.remoteRepositories.stream()
                 .map(RemoteRepository::toString)
                 .collect(Collectors.toList());
@@ -222,7 +533,7 @@ public class MavenFetcher {
      *
      * @see MavenFetcherProperties
      */
-    public MavenFetcher config(Properties properties) {
+    public synchronized MavenFetcher config(Properties properties) {
         if ("false".equalsIgnoreCase(properties.getProperty(USE_DEFAULT_REMOTE_REPOSITORY, "true"))) {
             clearRemoteRepositories();
         }
@@ -249,6 +560,16 @@ public class MavenFetcher {
                         checkURI(value);
                         this.proxyURL = value;
                         break;
+                    case HTTP2:
+                        this.http2 = Boolean.parseBoolean(value);
+                        break;
+                    case ADAPTIVE_REPOSITORY_ORDER:
+                        adaptiveRepositoryOrder(Boolean.parseBoolean(value));
+                        break;
+                    case UPDATE_POLICY:
+                        checkUpdatePolicy(value);
+                        this.updatePolicy = value;
+                        break;
                     default:
                         logger.warn("Property {} is not recognized and would be ignored", property);
                 }
@@ -256,9 +577,166 @@ public class MavenFetcher {
                 throw new MavenFetchException("Invalid value for property '" + property + "' : " + e.getMessage(), e);
             }
         }
+        invalidateCache();
+        return this;
+    }
+
+    /**
+     * Set the bounds of the cache shared by the fetch operations. Notice that the artifact
+     * descriptors are kept in a single pool, which counts as one entry and is only bounded by
+     * the time-to-live.
+     * @param maxEntries The maximum number of cached entries, {@code 0} to disable caching
+     * @param timeToLive The time a cached entry is kept before being discarded
+     */
+    public MavenFetcher cache(int maxEntries, Duration timeToLive) {
+        checkNonNull(timeToLive);
+        MavenFetcherCache replaced;
+        synchronized (this) {
+            replaced = this.cache;
+            this.cache = new MavenFetcherCache(maxEntries, timeToLive.toMillis());
+            this.cacheSize = maxEntries;
+            this.cacheTimeToLive = timeToLive;
+        }
+        closeCache(replaced);
+        return this;
+    }
+
+
+    /**
+     * Keep the latest versions resolved for artifacts requested without version, so further
+     * requests of the same artifacts do not fetch the repository metadata again. By default,
+     * resolved versions are not kept, although concurrent requests still share the lookup.
+     * @param timeToLive The time a resolved version is kept, or {@link Duration#ZERO} to
+     *                   not keep them
+     */
+    public synchronized MavenFetcher latestVersionCache(Duration timeToLive) {
+        checkNonNull(timeToLive);
+        this.latestVersions = new LatestVersionResolver(timeToLive.toMillis());
+        return this;
+    }
+
+
+    /**
+     * Remember the resources not found in each remote repository, so further fetch operations
+     * do not request them again until the given time passes.
+     * @param maxEntries The maximum number of missing resources kept, {@code 0} to disable it
+     * @param timeToLive The time a resource is considered missing
+     */
+    public MavenFetcher notFoundCache(int maxEntries, Duration timeToLive) {
+        return notFoundCache(maxEntries, timeToLive, null);
+    }
+
+
+    /**
+     * Remember the resources not found in each remote repository, so further fetch operations
+     * do not request them again until the given time passes. The cache is written to the given
+     * file after each fetch operation, and read from it when set, so it is shared by consecutive
+     * runs as well. Skipped requests emit no transfer events, so they are left out of the
+     * transfer statistics.
+     * @param maxEntries The maximum number of missing resources kept, {@code 0} to disable it
+     * @param timeToLive The time a resource is considered missing
+     * @param file The file the cache is persisted to, or {@code null} to keep it in memory only
+     */
+    public synchronized MavenFetcher notFoundCache(int maxEntries, Duration timeToLive, Path file) {
+        checkNonNull(timeToLive);
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Maximum number of entries cannot be negative");
+        }
+        if (maxEntries > 0 && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("Time-to-live must be positive");
+        }
+        this.notFoundCache = maxEntries == 0 ? null : new NotFoundCache(maxEntries, timeToLive.toMillis(), file);
+        invalidateCache();
         return this;
     }
 
+
+    /**
+     * Remember the authentication scheme (Basic or Bearer) each server asked for, so further
+     * fetch operations send the credentials along with the first request instead of waiting
+     * for the server to reject it. Only the scheme names are written to the given file, never
+     * the credentials.
+     * @param file The file the schemes are persisted to, or {@code null} to keep them in memory only
+     */
+    public synchronized MavenFetcher authSchemeCache(Path file) {
+        this.learnedAuthSchemes = new LearnedAuthSchemes(file);
+        invalidateCache();
+        return this;
+    }
+
+
+    /**
+     * Forget the resources recorded as missing in every remote repository, e.g. after new
+     * artifacts were deployed
+     * @see #notFoundCache(int, Duration, Path)
+     */
+    public MavenFetcher invalidateNotFoundCache() {
+        NotFoundCache cache;
+        synchronized (this) {
+            cache = this.notFoundCache;
+        }
+        if (cache != null) {
+            cache.invalidateAll();
+            saveNotFoundCache(cache, logger);
+        }
+        return this;
+    }
+
+
+    /**
+     * Forget the resources recorded as missing in the given remote repository, e.g. after new
+     * artifacts were deployed to it
+     * @see #notFoundCache(int, Duration, Path)
+     */
+    public MavenFetcher invalidateNotFoundCache(String repositoryId) {
+        checkNonNull(repositoryId);
+        NotFoundCache cache;
+        List<String> urls;
+        synchronized (this) {
+            cache = this.notFoundCache;
+            urls = remoteRepositories.stream()
+                .filter(repository -> repository.getId().equals(repositoryId))
+                .map(RemoteRepository::getUrl)
+                .collect(Collectors.toList());
+        }
+        if (cache != null) {
+            urls.forEach(cache::invalidate);
+            saveNotFoundCache(cache, logger);
+        }
+        return this;
+    }
+
+
+    /**
+     * Release the HTTP connections and any other cached data kept by this fetcher.
+     * The fetcher can still be used afterwards, at the cost of rebuilding the cache.
+     */
+    @Override
+    public void close() {
+        MavenFetcherCache replaced;
+        synchronized (this) {
+            replaced = this.cache;
+            this.cache = new MavenFetcherCache(cacheSize, cacheTimeToLive.toMillis());
+        }
+        closeCache(replaced);
+    }
+
+
+    private void invalidateCache() {
+        this.cache.clear();
+        this.latestVersions.clear();
+    }
+
+
+    private void closeCache(MavenFetcherCache cache) {
+        try {
+            cache.close();
+        } catch (IOException e) {
+            logger.warn("Cannot release cached resources: {}", e.getMessage());
+        }
+    }
+
+
     private void addRemoteRepositories(List<String> repositories) {
         for (String repository : repositories) {
             this.remoteRepositories.add(parseRemoteRepository(repository));
@@ -270,54 +748,481 @@ public class MavenFetcher {
      * repositories.
      */
     public MavenFetchResult fetchArtifacts(MavenFetchRequest request) {
+        return fetchArtifacts(request, null);
+    }
+
+
+    /**
+     * Retrieve asynchronously the specified artifacts and their dependencies from the
+     * remote repositories, using a thread of this fetcher.
+     */
+    public CompletableFuture<MavenFetchResult> fetchArtifactsAsync(MavenFetchRequest request) {
+        return fetchArtifactsAsync(request, null, asyncExecutor);
+    }
+
+
+    /**
+     * Retrieve asynchronously the specified artifacts and their dependencies from the
+     * remote repositories, using a thread of this fetcher.
+     * <p>
+     * The subscriber is notified of every fetched artifact as soon as its file is
+     * available in the local repository, before the whole fetch operation is completed.
+     * Notified artifacts do not include their dependencies.
+     */
+    public CompletableFuture<MavenFetchResult> fetchArtifactsAsync(
+            MavenFetchRequest request,
+            Consumer<FetchedArtifact> subscriber
+    ) {
+        return fetchArtifactsAsync(request, subscriber, asyncExecutor);
+    }
+
+
+    /**
+     * Retrieve asynchronously the specified artifacts and their dependencies from the
+     * remote repositories, using the given executor. The fetch operation blocks its thread
+     * until completed, so avoid executors meant for short non-blocking tasks, such as the
+     * common fork-join pool.
+     * <p>
+     * The subscriber, if not null, is notified of every fetched artifact as soon as its
+     * file is available in the local repository, before the whole fetch operation is
+     * completed. Notified artifacts do not include their dependencies.
+     */
+    public CompletableFuture<MavenFetchResult> fetchArtifactsAsync(
+            MavenFetchRequest request,
+            Consumer<FetchedArtifact> subscriber,
+            Executor executor
+    ) {
+        checkNonNull(request, executor);
+        return CompletableFuture.supplyAsync(() -> fetchArtifacts(request, subscriber), executor);
+    }
+
+
+    /**
+     * Retrieve the artifacts specified by several requests, and their dependencies, from
+     * the remote repositories.
+     * <p>
+     * Requests may differ in scopes, optionals and exclusions, but they are resolved
+     * together: descriptors shared by several requests are read once, and every artifact
+     * is downloaded once regardless the number of requests requiring it. The transfer
+     * statistics of each result cover the whole batch.
+     * @return The result of each request, in the same order the requests were given
+     */
+    public List<MavenFetchResult> fetchAll(Collection<MavenFetchRequest> requests) {
+        checkNonNull(requests);
+        return fetchAll(new ArrayList<>(requests), null);
+    }
+
+
+    /**
+     * Fill the local repository with the artifacts listed in the given file, as fast as
+     * possible. The file contains one entry per line, either the coordinates of an artifact
+     * or the path of a lockfile (relative to the file); empty lines and lines starting with
+     * <code>#</code> are ignored.
+     * @throws IOException if the file, or any lockfile listed in it, cannot be read
+     * @see #prefetch(Collection)
+     */
+    public PrefetchSummary prefetch(Path coordinatesFile) throws IOException {
+        checkNonNull(coordinatesFile);
+        List<MavenFetchRequest> requests = new ArrayList<>();
+        Path directory = coordinatesFile.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(coordinatesFile)) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            if (!entry.contains(":") || entry.contains("/") || entry.contains("\\")) {
+                Path lockfile = directory.resolve(entry);
+                requests.add(MavenFetchLockfile.read(lockfile).request().lockfile(lockfile));
+            } else {
+                requests.add(new MavenFetchRequest(entry));
+            }
+        }
+        return prefetch(requests);
+    }
+
+
+    /**
+     * Fill the local repository with the artifacts required by the given requests, as fast
+     * as possible. Unlike {@link #fetchAll(Collection)}, requests are fetched in several
+     * concurrent batches, so reading descriptors and downloading artifacts overlap, and a
+     * failing request does not prevent the others from being fetched.
+     * <p>
+     * A summary of the operation is logged at the end.
+     * @return The summary of the operation
+     */
+    public PrefetchSummary prefetch(Collection<MavenFetchRequest> requests) {
+        checkNonNull(requests);
+        Logger logger = this.logger;
+        List<MavenFetchRequest> pending = new ArrayList<>(requests);
+        MavenTransferListener listener = new MavenTransferListener(logger);
+        Set<String> artifacts = ConcurrentHashMap.newKeySet();
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failedRequests = new AtomicInteger();
+        long start = System.nanoTime();
+        int batches = (pending.size() + PREFETCH_BATCH_SIZE - 1) / PREFETCH_BATCH_SIZE;
+        Executor executor = ExecutorUtils.executor(
+            Math.min(batches, PREFETCH_PARALLELISM),
+            getClass().getSimpleName() + "-prefetch-"
+        );
+        try {
+            List<FutureTask<Void>> tasks = new ArrayList<>(batches);
+            for (int from = 0; from < pending.size(); from += PREFETCH_BATCH_SIZE) {
+                List<MavenFetchRequest> batch = pending.subList(
+                    from, Math.min(from + PREFETCH_BATCH_SIZE, pending.size())
+                );
+                FutureTask<Void> task = new FutureTask<>(
+                    () -> prefetchBatch(batch, listener, artifacts, errors, failedRequests),
+                    null
+                );
+                tasks.add(task);
+                executor.execute(task);
+            }
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenFetchException(e);
+        } catch (ExecutionException e) {
+            throw new MavenFetchException(e.getCause());
+        } finally {
+            ExecutorUtils.shutdown(executor);
+        }
+        PrefetchSummary summary = new PrefetchSummary(
+            pending.size(),
+            failedRequests.get(),
+            artifacts.size(),
+            errors,
+            Duration.ofNanos(System.nanoTime() - start),
+            listener.statistics()
+        );
+        logger.info("{}", summary);
+        return summary;
+    }
+
+
+    private void prefetchBatch(
+        List<MavenFetchRequest> batch,
+        MavenTransferListener listener,
+        Set<String> artifacts,
+        List<Exception> errors,
+        AtomicInteger failedRequests
+    ) {
+        List<MavenFetchResult> results;
         try {
+            results = fetchAll(batch, null, listener);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failedRequests.incrementAndGet();
+                errors.add(e);
+                return;
+            }
+            // a request failing as a whole aborts its batch, so the requests are retried one by one
+            for (MavenFetchRequest request : batch) {
+                prefetchBatch(Collections.singletonList(request), listener, artifacts, errors, failedRequests);
+            }
+            return;
+        }
+        for (MavenFetchResult result : results) {
+            result.allArtifacts().forEach(artifact -> artifacts.add(artifact.coordinates()));
+            if (result.hasErrors()) {
+                failedRequests.incrementAndGet();
+                result.errors().forEach(errors::add);
+            }
+        }
+    }
+
+
+    private MavenFetchResult fetchArtifacts(MavenFetchRequest request, Consumer<FetchedArtifact> subscriber) {
+        checkNonNull(request);
+        return fetchAll(Collections.singletonList(request), subscriber).get(0);
+    }
+
+
+    private List<MavenFetchResult> fetchAll(List<MavenFetchRequest> requests, Consumer<FetchedArtifact> subscriber) {
+        return fetchAll(requests, subscriber, new MavenTransferListener(logger, cancellation(requests)));
+    }
+
+
+    private List<MavenFetchResult> fetchAll(
+            List<MavenFetchRequest> requests,
+            Consumer<FetchedArtifact> subscriber,
+            MavenTransferListener listener
+    ) {
+        Logger logger = this.logger;
+        List<RemoteRepository> repositories;
+        DefaultRepositorySystemSession session;
+        LatestVersionResolver latestVersions;
+        NotFoundCache notFoundCache;
+        LearnedAuthSchemes learnedAuthSchemes;
+        synchronized (this) {
             if (remoteRepositories.isEmpty()) {
                 throw new IllegalArgumentException("Remote repositories not specified");
             }
-            MavenTransferListener listener = new MavenTransferListener(logger);
-            MavenFetchResult result = new MavenArtifactFetcher(
-                    system(),
-                    remoteRepositories,
-                    newSession(listener),
-                    request,
-                    listener,
-                    logger
-            )
-                    .fetch();
-            if (result.hasErrors()) {
-                logger.warn("Some dependencies were not fetched!");
+            repositories = repositoryRanking == null ?
+                new ArrayList<>(remoteRepositories) :
+                repositoryRanking.rank(remoteRepositories);
+            session = newSession(listener);
+            latestVersions = this.latestVersions;
+            notFoundCache = this.notFoundCache;
+            learnedAuthSchemes = this.learnedAuthSchemes;
+        }
+        limitTimeouts(session, requests);
+        MavenFetchResult[] results = new MavenFetchResult[requests.size()];
+        List<MavenFetchRequest> unlockedRequests = new ArrayList<>();
+        List<Integer> unlockedPositions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            MavenFetchRequest request = requests.get(i);
+            MavenFetchLockfile lockfile = readLockfile(request.lockfile(), request, logger);
+            if (lockfile != null) {
+                logger.info("Fetching artifacts recorded in lockfile {}", request.lockfile());
+                results[i] = new LockedArtifactFetcher(
+                        system(),
+                        repositories,
+                        session,
+                        request,
+                        lockfile,
+                        subscriber,
+                        logger
+                )
+                        .fetch();
+            } else {
+                unlockedRequests.add(request);
+                unlockedPositions.add(i);
             }
-            logger.info("{} artifacts resolved.", result.allArtifacts().count());
-            return result;
-        } catch (DependencyCollectionException | ArtifactDescriptorException e) {
-            throw new MavenFetchException(e);
+        }
+        if (!unlockedRequests.isEmpty()) {
+            List<MavenFetchResult> fetched;
+            try {
+                fetched = new MavenArtifactFetcher(
+                        system(),
+                        repositories,
+                        session,
+                        unlockedRequests,
+                        latestVersions,
+                        subscriber,
+                        logger
+                )
+                        .fetchAll();
+            } catch (DependencyCollectionException | ArtifactDescriptorException e) {
+                throw new MavenFetchException(e);
+            }
+            for (int i = 0; i < fetched.size(); i++) {
+                MavenFetchRequest request = unlockedRequests.get(i);
+                MavenFetchResult result = fetched.get(i);
+                if (request.lockfile() != null && !result.hasErrors()) {
+                    writeLockfile(result, request.lockfile());
+                }
+                results[unlockedPositions.get(i)] = result;
+            }
+        }
+        if (notFoundCache != null) {
+            saveNotFoundCache(notFoundCache, logger);
+        }
+        saveAuthSchemes(learnedAuthSchemes, logger);
+        for (MavenFetchResult result : results) {
+            logResult(result, logger);
+        }
+        return Arrays.asList(results);
+    }
+
+
+    private static void saveNotFoundCache(NotFoundCache notFoundCache, Logger logger) {
+        try {
+            notFoundCache.save();
+        } catch (IOException e) {
+            logger.warn("Cannot write the cache of missing resources : {}", e.getMessage());
+        }
+    }
+
+
+    private static void saveAuthSchemes(LearnedAuthSchemes learnedAuthSchemes, Logger logger) {
+        try {
+            learnedAuthSchemes.save();
+        } catch (IOException e) {
+            logger.warn("Cannot write the cache of authentication schemes : {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Record the given result in a lockfile, so it can be fetched again later without
+     * collecting dependencies
+     * @see MavenFetchRequest#lockfile(Path)
+     */
+    public void writeLockfile(MavenFetchResult result, Path lockfile) {
+        checkNonNull(result, lockfile);
+        try {
+            MavenFetchLockfile.of(result).write(lockfile);
+        } catch (IOException e) {
+            throw new MavenFetchException("Cannot write lockfile " + lockfile + " : " + e.getMessage(), e);
+        }
+    }
+
+
+    private static MavenFetchLockfile readLockfile(Path path, MavenFetchRequest request, Logger logger) {
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+        try {
+            MavenFetchLockfile lockfile = MavenFetchLockfile.read(path);
+            if (lockfile.matches(request)) {
+                return lockfile;
+            }
+            logger.info("Lockfile {} does not match the request and would be replaced", path);
+        } catch (IOException e) {
+            logger.warn("Cannot read lockfile {} : {}", path, e.getMessage());
+        }
+        return null;
+    }
+
+
+    private static void logResult(MavenFetchResult result, Logger logger) {
+        if (result.hasErrors()) {
+            logger.warn("Some dependencies were not fetched!");
+        }
+        logger.info("{} artifacts resolved.", result.allArtifacts().count());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Transfer statistics:\n{}", result.transferStatistics());
         }
     }
     
-    public Path getLocalRepository() {
+    public synchronized Path getLocalRepository() {
     	return localRepository.getBasedir().toPath();
     }
 
     private RepositorySystem system() {
         if (system == null) {
-            system = newRepositorySystem(MavenRepositorySystemUtils.newServiceLocator());
-            if (system == null) {
-                throw new NullPointerException("Cannot instantiate system");
+            synchronized (this) {
+                if (system == null) {
+                    DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+                    RepositorySystem newSystem = newRepositorySystem(locator);
+                    if (newSystem == null) {
+                        throw new NullPointerException("Cannot instantiate system");
+                    }
+                    transporterProvider = locator.getService(TransporterProvider.class);
+                    system = newSystem;
+                }
             }
         }
         return system;
     }
 
+    private TransporterProvider transporterProvider() {
+        system();
+        return transporterProvider;
+    }
+
+    /*
+     * Transfers are shared among the requests, so they are aborted only once every
+     * request has been cancelled
+     */
+    private static BooleanSupplier cancellation(List<MavenFetchRequest> requests) {
+        for (MavenFetchRequest request : requests) {
+            if (request.deadline() == null && request.cancellationToken() == null) {
+                return () -> false;
+            }
+        }
+        return () -> {
+            for (MavenFetchRequest request : requests) {
+                if (!request.isCancelled()) {
+                    return false;
+                }
+            }
+            return !requests.isEmpty();
+        };
+    }
+
+
+    /*
+     * A single stalled connection must not outlast the deadline of the requests, since
+     * the transfer listener is not notified until some data is received
+     */
+    private static void limitTimeouts(DefaultRepositorySystemSession session, List<MavenFetchRequest> requests) {
+        Instant deadline = null;
+        for (MavenFetchRequest request : requests) {
+            if (request.deadline() == null) {
+                return;
+            }
+            if (deadline == null || request.deadline().isAfter(deadline)) {
+                deadline = request.deadline();
+            }
+        }
+        if (deadline == null) {
+            return;
+        }
+        long remaining = Math.max(1, deadline.toEpochMilli() - System.currentTimeMillis());
+        session.setConfigProperty(
+            ConfigurationProperties.CONNECT_TIMEOUT,
+            (int) Math.min(ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT, remaining)
+        );
+        session.setConfigProperty(
+            ConfigurationProperties.REQUEST_TIMEOUT,
+            (int) Math.min(ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT, remaining)
+        );
+    }
+
+
     private DefaultRepositorySystemSession newSession(MavenTransferListener listener) {
         DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+        session.setCache(cache);
         session
                 .setLocalRepositoryManager(system().newLocalRepositoryManager(session, localRepository));
-        session.setTransferListener(listener);
+        session.setTransferListener(
+            repositoryRanking == null ? listener : ChainedTransferListener.newInstance(listener, repositoryRanking)
+        );
         session.setSystemProperties(System.getProperties());
+        if (http2) {
+            session.setConfigProperty(CONFIG_PROP_HTTP2_PRIORITY, HTTP2_PRIORITY);
+            session.setConfigProperty(CONFIG_PROP_CONNECTOR_THREADS, HTTP2_CONNECTOR_THREADS);
+        }
+        if (segments > 1) {
+            session.setConfigProperty(CONFIG_PROP_HTTP_SEGMENTS, segments);
+            session.setConfigProperty(CONFIG_PROP_HTTP_SEGMENT_THRESHOLD, segmentThreshold);
+        }
+        session.setConfigProperty(ConfigurationProperties.HTTP_RETRY_HANDLER_COUNT, maxRetries);
+        session.setConfigProperty(ConfigurationProperties.HTTP_RETRY_HANDLER_INTERVAL, retryBackoff.toMillis());
+        if (preopenConnections > 0) {
+            session.setConfigProperty(CONFIG_PROP_HTTP_PREOPEN_CONNECTIONS, preopenConnections);
+        }
+        if (updatePolicy != null) {
+            session.setUpdatePolicy(updatePolicy);
+        }
         proxy().ifPresent(session::setProxySelector);
+        configureHedging(session);
+        if (notFoundCache != null) {
+            session.setConfigProperty(NotFoundCache.CONFIG_PROP, notFoundCache);
+        }
+        for (String repositoryId : preemptiveAuthRepositories) {
+            session.setConfigProperty(ConfigurationProperties.HTTP_PREEMPTIVE_AUTH + "." + repositoryId, true);
+        }
+        session.setConfigProperty(LearnedAuthSchemes.CONFIG_PROP, learnedAuthSchemes);
         return session;
     }
 
+    private void configureHedging(DefaultRepositorySystemSession session) {
+        List<RemoteRepository> mirrors = new ArrayList<>();
+        for (String repositoryId : hedgedRepositories) {
+            remoteRepositories.stream()
+                .filter(repository -> repository.getId().equals(repositoryId))
+                .findFirst()
+                .ifPresent(mirrors::add);
+        }
+        if (mirrors.size() < 2) {
+            return;
+        }
+        session.setConfigProperty(CONFIG_PROP_HEDGING_DELAY, hedgingDelay.toMillis());
+        for (int i = 0; i < mirrors.size(); i++) {
+            RemoteRepository mirror = mirrors.get((i + 1) % mirrors.size());
+            if (session.getProxySelector() != null) {
+                mirror = new RemoteRepository.Builder(mirror)
+                    .setProxy(session.getProxySelector().getProxy(mirror))
+                    .build();
+            }
+            session.setConfigProperty(CONFIG_PROP_HEDGING_MIRROR + "." + mirrors.get(i).getId(), mirror);
+        }
+    }
+
     private Optional<ProxySelector> proxy() {
         if (proxyURL == null) {
             return Optional.empty();
@@ -355,6 +1260,7 @@ public class MavenFetcher {
         locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
         locator.addService(TransporterFactory.class, FileTransporterFactory.class);
         locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+        locator.addService(TransporterFactory.class, JdkHttpTransporterFactory.class);
         return locator.getService(RepositorySystem.class);
     }
 
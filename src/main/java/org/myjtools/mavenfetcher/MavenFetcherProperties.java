@@ -27,5 +27,14 @@ public class MavenFetcherProperties {
 
     /** A list of proxy exceptions separated with `;` */
     public static final String PROXY_EXCEPTIONS  = "proxy.exceptions";
+
+    /** Set whether HTTP/2 should be used to access the remote repositories (`false` by default) */
+    public static final String HTTP2 = "http2";
+
+    /** How often the remote metadata is checked for updates: `always`, `daily`, `never` or `interval:<minutes>` */
+    public static final String UPDATE_POLICY = "updatePolicy";
+
+    /** Set whether the remote repositories are ordered by their observed performance (`false` by default) */
+    public static final String ADAPTIVE_REPOSITORY_ORDER = "adaptiveRepositoryOrder";
     
 }
@@ -0,0 +1,115 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+
+/**
+ * Immutable summary of a prefetch operation
+ * @see MavenFetcher#prefetch(java.util.Collection)
+ */
+public class PrefetchSummary {
+
+    private final int requests;
+    private final int failedRequests;
+    private final int artifacts;
+    private final List<Exception> errors;
+    private final Duration elapsedTime;
+    private final TransferStatistics transferStatistics;
+
+
+    public PrefetchSummary(
+        int requests,
+        int failedRequests,
+        int artifacts,
+        List<Exception> errors,
+        Duration elapsedTime,
+        TransferStatistics transferStatistics
+    ) {
+        this.requests = requests;
+        this.failedRequests = failedRequests;
+        this.artifacts = artifacts;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        this.elapsedTime = elapsedTime;
+        this.transferStatistics = transferStatistics;
+    }
+
+
+    /**
+     * The number of requests prefetched
+     */
+    public int requests() {
+        return requests;
+    }
+
+
+    /**
+     * The number of requests that could not be completely fetched
+     */
+    public int failedRequests() {
+        return failedRequests;
+    }
+
+
+    /**
+     * The number of distinct artifacts available in the local repository after the
+     * operation, including dependencies
+     */
+    public int artifacts() {
+        return artifacts;
+    }
+
+
+    /**
+     * @return A new stream with all the errors ocurred
+     */
+    public Stream<Exception> errors() {
+        return errors.stream();
+    }
+
+
+    /**
+     * The time spent by the whole operation
+     */
+    public Duration elapsedTime() {
+        return elapsedTime;
+    }
+
+
+    /**
+     * The transfers performed by the whole operation
+     */
+    public TransferStatistics transferStatistics() {
+        return transferStatistics;
+    }
+
+
+    /**
+     * The average number of bytes received per second during the elapsed time
+     */
+    public double throughput() {
+        return elapsedTime.isZero() ? 0.0 : transferStatistics.bytesTransferred() * 1000.0 / elapsedTime.toMillis();
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format(
+            "Prefetched %d artifacts for %d requests (%d failed) in %d ms : %d bytes, %d transfers, %.0f bytes/s",
+            artifacts,
+            requests,
+            failedRequests,
+            elapsedTime.toMillis(),
+            transferStatistics.bytesTransferred(),
+            transferStatistics.succeededTransfers(),
+            throughput()
+        );
+    }
+
+}
@@ -1,5 +1,9 @@
 package org.myjtools.mavenfetcher;
 
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+
 import java.util.Objects;
 
 public class Repository {
@@ -8,6 +12,8 @@ public class Repository {
     private final String url;
     private String username;
     private String password;
+    private String bearerToken;
+    private boolean preemptiveAuthentication;
     private int priority = -1;
 
 
@@ -24,6 +30,25 @@ public class Repository {
     }
 
 
+    /**
+     * Authenticate with the given token (using the Bearer scheme) instead of a username and password
+     */
+    public Repository bearerToken(String token) {
+        this.bearerToken = Objects.requireNonNull(token);
+        return this;
+    }
+
+
+    /**
+     * Send the credentials along with the first request to the repository, instead of waiting
+     * for the server to ask for them
+     */
+    public Repository preemptiveAuthentication(boolean enabled) {
+        this.preemptiveAuthentication = enabled;
+        return this;
+    }
+
+
     public Repository priority(int priority) {
         this.priority = priority;
         return this;
@@ -35,6 +60,32 @@ public class Repository {
     }
 
 
+    String id() {
+        return id;
+    }
+
+
+    boolean isPreemptiveAuthentication() {
+        return preemptiveAuthentication;
+    }
+
+
+    RemoteRepository toRemoteRepository() {
+        RemoteRepository.Builder builder = new RemoteRepository.Builder(id, "default", url);
+        if (username != null || bearerToken != null) {
+            AuthenticationBuilder authentication = new AuthenticationBuilder();
+            if (username != null) {
+                authentication.addUsername(username).addPassword(password);
+            }
+            if (bearerToken != null) {
+                authentication.addSecret(AuthenticationContext.BEARER_TOKEN, bearerToken);
+            }
+            builder.setAuthentication(authentication.build());
+        }
+        return builder.build();
+    }
+
+
     @Override
     public String toString() {
         if (username != null) {
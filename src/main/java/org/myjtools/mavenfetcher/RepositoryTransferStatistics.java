@@ -0,0 +1,147 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * Immutable snapshot of the transfers performed against a single remote repository
+ */
+public class RepositoryTransferStatistics {
+
+    private final String repositoryId;
+    private final String repositoryUrl;
+    private final long bytesTransferred;
+    private final long succeededTransfers;
+    private final long failedTransfers;
+    private final int activeTransfers;
+    private final Duration elapsedTime;
+    private final Duration meanTimeToFirstByte;
+    private final Map<TransferStatistics.ResourceType, LatencyHistogram> latencies;
+
+
+    public RepositoryTransferStatistics(
+        String repositoryId,
+        String repositoryUrl,
+        long bytesTransferred,
+        long succeededTransfers,
+        long failedTransfers,
+        int activeTransfers,
+        Duration elapsedTime,
+        Duration meanTimeToFirstByte,
+        Map<TransferStatistics.ResourceType, LatencyHistogram> latencies
+    ) {
+        this.repositoryId = repositoryId;
+        this.repositoryUrl = repositoryUrl;
+        this.bytesTransferred = bytesTransferred;
+        this.succeededTransfers = succeededTransfers;
+        this.failedTransfers = failedTransfers;
+        this.activeTransfers = activeTransfers;
+        this.elapsedTime = elapsedTime;
+        this.meanTimeToFirstByte = meanTimeToFirstByte;
+        this.latencies = latencies.isEmpty() ?
+            Collections.emptyMap() :
+            Collections.unmodifiableMap(new EnumMap<>(latencies));
+    }
+
+
+    /**
+     * The id of the repository
+     */
+    public String repositoryId() {
+        return repositoryId;
+    }
+
+
+    /**
+     * The URL of the repository
+     */
+    public String repositoryUrl() {
+        return repositoryUrl;
+    }
+
+
+    /**
+     * The number of bytes received from the repository
+     */
+    public long bytesTransferred() {
+        return bytesTransferred;
+    }
+
+
+    /**
+     * The number of transfers completed successfully
+     */
+    public long succeededTransfers() {
+        return succeededTransfers;
+    }
+
+
+    /**
+     * The number of transfers that failed, including resources not found
+     */
+    public long failedTransfers() {
+        return failedTransfers;
+    }
+
+
+    /**
+     * The number of transfers in progress when the snapshot was taken
+     */
+    public int activeTransfers() {
+        return activeTransfers;
+    }
+
+
+    /**
+     * The time elapsed since the first transfer was initiated until the last one ended
+     */
+    public Duration elapsedTime() {
+        return elapsedTime;
+    }
+
+
+    /**
+     * The average number of bytes received per second during the elapsed time
+     */
+    public double throughput() {
+        return elapsedTime.isZero() ? 0.0 : bytesTransferred * 1000.0 / elapsedTime.toMillis();
+    }
+
+
+    /**
+     * The average time since a transfer is initiated until its data starts to arrive
+     */
+    public Duration meanTimeToFirstByte() {
+        return meanTimeToFirstByte;
+    }
+
+
+    /**
+     * The latency distribution of the completed transfers, per type of resource
+     */
+    public Map<TransferStatistics.ResourceType, LatencyHistogram> latencies() {
+        return latencies;
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s [%s] : %d bytes, %d succeeded, %d failed, %.0f bytes/s, ttfb %d ms",
+            repositoryId,
+            repositoryUrl,
+            bytesTransferred,
+            succeededTransfers,
+            failedTransfers,
+            throughput(),
+            meanTimeToFirstByte.toMillis()
+        );
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+
+/**
+ * Immutable snapshot of the transfers performed during a fetch operation, grouped by
+ * remote repository.
+ */
+public class TransferStatistics {
+
+    /**
+     * Types of resources transferred from a repository
+     */
+    public enum ResourceType {
+        JAR, POM, METADATA, CHECKSUM, OTHER;
+
+        /**
+         * @return The type of the given resource, according its name
+         */
+        public static ResourceType of(String resourceName) {
+            if (resourceName.endsWith(".sha1") || resourceName.endsWith(".md5") ||
+                resourceName.endsWith(".sha256") || resourceName.endsWith(".sha512")) {
+                return CHECKSUM;
+            } else if (resourceName.contains("maven-metadata")) {
+                return METADATA;
+            } else if (resourceName.endsWith(".pom")) {
+                return POM;
+            } else if (resourceName.endsWith(".jar")) {
+                return JAR;
+            }
+            return OTHER;
+        }
+    }
+
+
+    public static final TransferStatistics EMPTY = new TransferStatistics(Collections.emptyMap());
+
+    private final Map<String, RepositoryTransferStatistics> repositories;
+
+
+    /**
+     * @param repositories The statistics of each repository, by repository id
+     */
+    public TransferStatistics(Map<String, RepositoryTransferStatistics> repositories) {
+        this.repositories = Collections.unmodifiableMap(new LinkedHashMap<>(repositories));
+    }
+
+
+    /**
+     * The statistics of each repository, by repository id
+     */
+    public Map<String, RepositoryTransferStatistics> repositories() {
+        return repositories;
+    }
+
+
+    /**
+     * The total number of bytes received from every repository
+     */
+    public long bytesTransferred() {
+        return repositories.values().stream().mapToLong(RepositoryTransferStatistics::bytesTransferred).sum();
+    }
+
+
+    /**
+     * The total number of transfers completed successfully
+     */
+    public long succeededTransfers() {
+        return repositories.values().stream().mapToLong(RepositoryTransferStatistics::succeededTransfers).sum();
+    }
+
+
+    /**
+     * The total number of transfers that failed
+     */
+    public long failedTransfers() {
+        return repositories.values().stream().mapToLong(RepositoryTransferStatistics::failedTransfers).sum();
+    }
+
+
+    @Override
+    public String toString() {
+        return repositories.values().stream()
+            .map(RepositoryTransferStatistics::toString)
+            .collect(Collectors.joining("\n"));
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
+import org.myjtools.mavenfetcher.FetchedArtifact;
+import org.myjtools.mavenfetcher.MavenFetchException;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+
+/**
+ * Download phase of a fetch operation. The requested artifacts are passed to the
+ * resolver in bounded batches, so the repository connectors download the artifacts
+ * of each batch concurrently. Once cancelled, the pending batches are not resolved.
+ */
+class ArtifactDownloader {
+
+    /*
+     * Maximum number of artifacts sent to the resolver in a single batch. Each batch is
+     * handed over to the repository connectors at once, so downloads within a batch
+     * are performed concurrently.
+     */
+    private static final int DOWNLOAD_BATCH_SIZE = 256;
+
+    private final RepositorySystem system;
+    private final RepositorySystemSession session;
+    private final BooleanSupplier cancelled;
+    private final FetchedArtifactNotifier notifier;
+    private final RequestTrace trace;
+    private final Logger logger;
+
+
+    ArtifactDownloader(
+        RepositorySystem system,
+        RepositorySystemSession session,
+        BooleanSupplier cancelled,
+        Consumer<FetchedArtifact> subscriber,
+        Logger logger
+    ) {
+        this.system = system;
+        this.cancelled = cancelled;
+        this.logger = logger;
+        // the trace allows the notifier to tell apart the requested artifacts from POMs and other resources
+        this.trace = new RequestTrace(this);
+        if (subscriber == null) {
+            this.notifier = null;
+            this.session = session;
+        } else {
+            this.notifier = new FetchedArtifactNotifier(this, subscriber, logger);
+            this.session = new DefaultRepositorySystemSession(session)
+                .setTransferListener(ChainedTransferListener.newInstance(session.getTransferListener(), notifier));
+        }
+    }
+
+
+    /**
+     * Resolve the given requests, returning the result of each one in the same order
+     */
+    List<ArtifactResult> download(List<ArtifactRequest> requests) {
+        List<ArtifactResult> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += DOWNLOAD_BATCH_SIZE) {
+            List<ArtifactRequest> batch = requests.subList(
+                from, Math.min(from + DOWNLOAD_BATCH_SIZE, requests.size())
+            );
+            if (cancelled.getAsBoolean()) {
+                batch.forEach(request -> results.add(cancelledResult(request)));
+                continue;
+            }
+            batch.forEach(request -> request.setTrace(trace));
+            for (ArtifactResult result : resolveArtifacts(batch)) {
+                if (result.isResolved() && notifier != null) {
+                    // artifacts already present in the local repository are not transferred
+                    notifier.notify(result.getRequest().getArtifact(), result.getArtifact().getFile());
+                }
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+
+    /**
+     * Notify the subscriber, if any, of an artifact that did not need to be downloaded
+     */
+    void notifyAvailable(Artifact artifact) {
+        if (notifier != null) {
+            notifier.notify(artifact, artifact.getFile());
+        }
+    }
+
+
+    /**
+     * @return The errors of the unresolved artifacts among the given results
+     */
+    List<Exception> errors(List<ArtifactResult> results) {
+        List<Exception> errors = new ArrayList<>();
+        for (ArtifactResult result : results) {
+            if (!result.isResolved()) {
+                errors.add(fetchError(result));
+            }
+        }
+        return errors;
+    }
+
+
+    private List<ArtifactResult> resolveArtifacts(List<ArtifactRequest> requests) {
+        try {
+            return system.resolveArtifacts(session, requests);
+        } catch (ArtifactResolutionException e) {
+            // partial failures are reported per artifact within the results
+            return e.getResults();
+        }
+    }
+
+
+    private static ArtifactResult cancelledResult(ArtifactRequest request) {
+        return new ArtifactResult(request).addException(new TransferCancelledException("Download cancelled"));
+    }
+
+
+    private MavenFetchException fetchError(ArtifactResult result) {
+        Artifact artifact = result.getRequest().getArtifact();
+        Exception cause = result.getExceptions().isEmpty() ? null : result.getExceptions().get(0);
+        if (cause != null && !(cause instanceof ArtifactNotFoundException)) {
+            logger.debug("<caused by>", cause);
+        }
+        return new MavenFetchException("Could not fetch artifact " + fileName(artifact), cause);
+    }
+
+
+    static String fileName(Artifact artifact) {
+        StringBuilder name = new StringBuilder(artifact.getArtifactId())
+            .append('-')
+            .append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            name.append('-').append(artifact.getClassifier());
+        }
+        return name.append('.').append(artifact.getExtension()).toString();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.artifact.Artifact;
+
+import java.util.*;
+
+
+/**
+ * Matcher of the artifacts excluded from a fetch request. Exclusions are expressed as
+ * {@literal <groupId>:<artifactId>}, where either part can be the wildcard <code>*</code>.
+ * <p>
+ * Patterns are compiled into hashed lookups, so matching an artifact costs a constant
+ * number of hash probes regardless the number of exclusions, and does not allocate.
+ */
+class ExclusionMatcher {
+
+    private static final String WILDCARD = "*";
+
+    private final Map<String, Set<String>> artifactIdsByGroup = new HashMap<>();
+    private final Set<String> groupIds = new HashSet<>();
+    private final Set<String> artifactIds = new HashSet<>();
+    private boolean excludingAll;
+
+
+    ExclusionMatcher(Collection<String> exclusions) {
+        for (String exclusion : exclusions) {
+            String[] parts = exclusion.split(":");
+            if (parts.length < 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid exclusion '" + exclusion + "'");
+            }
+            String groupId = parts[0];
+            String artifactId = parts[1];
+            if (WILDCARD.equals(groupId) && WILDCARD.equals(artifactId)) {
+                excludingAll = true;
+            } else if (WILDCARD.equals(artifactId)) {
+                groupIds.add(groupId);
+            } else if (WILDCARD.equals(groupId)) {
+                artifactIds.add(artifactId);
+            } else {
+                artifactIdsByGroup.computeIfAbsent(groupId, group -> new HashSet<>()).add(artifactId);
+            }
+        }
+    }
+
+
+    boolean matches(Artifact artifact) {
+        if (excludingAll) {
+            return true;
+        }
+        String groupId = artifact.getGroupId();
+        String artifactId = artifact.getArtifactId();
+        if (groupIds.contains(groupId) || artifactIds.contains(artifactId)) {
+            return true;
+        }
+        Set<String> groupArtifactIds = artifactIdsByGroup.get(groupId);
+        return groupArtifactIds != null && groupArtifactIds.contains(artifactId);
+    }
+
+}
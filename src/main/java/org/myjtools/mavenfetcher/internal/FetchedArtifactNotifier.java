@@ -0,0 +1,94 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.myjtools.mavenfetcher.FetchedArtifact;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+
+/**
+ * Transfer listener that notifies a subscriber each time one of the artifacts requested
+ * by a given fetch operation is available in the local repository.
+ * <p>
+ * The connector only reports a successful transfer once the downloaded file has passed
+ * the checksum validation and has been moved to its final location, so the notified
+ * path is ready to be used. The dependencies of the notified artifacts are not included,
+ * since they may still be downloading.
+ */
+class FetchedArtifactNotifier extends AbstractTransferListener {
+
+    private final Object owner;
+    private final Consumer<FetchedArtifact> subscriber;
+    private final Logger logger;
+    private final Set<Artifact> notified = ConcurrentHashMap.newKeySet();
+
+
+    /**
+     * @param owner The data of the request trace used by the artifact requests to be notified
+     * @param subscriber The consumer of the fetched artifacts
+     * @param logger The logger used to report subscriber errors
+     */
+    FetchedArtifactNotifier(Object owner, Consumer<FetchedArtifact> subscriber, Logger logger) {
+        this.owner = owner;
+        this.subscriber = subscriber;
+        this.logger = logger;
+    }
+
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        if (event.getRequestType() != TransferEvent.RequestType.GET) {
+            return;
+        }
+        ArtifactRequest request = ownedRequest(event.getResource().getTrace());
+        if (request != null) {
+            notify(request.getArtifact(), event.getResource().getFile());
+        }
+    }
+
+
+    /**
+     * Notify the given artifact, unless it has been already notified
+     */
+    void notify(Artifact artifact, File file) {
+        if (file == null || !notified.add(artifact)) {
+            return;
+        }
+        try {
+            subscriber.accept(new FetchedArtifact(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getVersion(),
+                file.toPath(),
+                Collections.emptyList()
+            ));
+        } catch (RuntimeException e) {
+            logger.warn("Error notifying fetched artifact {} : {}", artifact, e.getMessage());
+            logger.debug("<caused by>", e);
+        }
+    }
+
+
+    private ArtifactRequest ownedRequest(RequestTrace trace) {
+        for (RequestTrace current = trace; current != null; current = current.getParent()) {
+            RequestTrace parent = current.getParent();
+            if (current.getData() instanceof ArtifactRequest && parent != null && parent.getData() == owner) {
+                return (ArtifactRequest) current.getData();
+            }
+        }
+        return null;
+    }
+
+}
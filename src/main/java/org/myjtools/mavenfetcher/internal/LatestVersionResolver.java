@@ -0,0 +1,133 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.VersionRequest;
+import org.eclipse.aether.resolution.VersionResolutionException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Resolver of the latest version of artifacts requested without version, shared by every
+ * fetch operation of a fetcher.
+ * <p>
+ * Concurrent lookups of the same artifact against the same repositories are coalesced, so
+ * the repository metadata is fetched only once. Optionally, resolved versions are kept for
+ * a given time-to-live; otherwise, they are discarded as soon as the lookup is completed.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public class LatestVersionResolver {
+
+    private static final class CachedVersion {
+
+        private final CompletableFuture<String> version = new CompletableFuture<>();
+        private final long created;
+
+        private CachedVersion(long created) {
+            this.created = created;
+        }
+    }
+
+
+    /*
+     * Resolved versions are cached here instead of by the resolver, so they follow the
+     * time-to-live of this class rather than the one of the session cache
+     */
+    private static final String CONFIG_PROP_VERSION_RESOLVER_NO_CACHE = "aether.versionResolver.noCache";
+
+    private final long timeToLive;
+    private final ConcurrentMap<String, CachedVersion> versions = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param timeToLive The time, in milliseconds, that a resolved version is kept, or 0 to
+     *                   not keep resolved versions
+     */
+    public LatestVersionResolver(long timeToLive) {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("Time-to-live cannot be negative");
+        }
+        this.timeToLive = timeToLive;
+    }
+
+
+    /**
+     * @return The latest version of the given artifact available in the given repositories
+     */
+    String resolve(
+        RepositorySystem system,
+        RepositorySystemSession session,
+        String groupId,
+        String artifactId,
+        List<RemoteRepository> repositories
+    ) throws VersionResolutionException {
+        String key = key(groupId, artifactId, repositories);
+        long now = System.currentTimeMillis();
+        CachedVersion candidate = new CachedVersion(now);
+        CachedVersion cached = versions.compute(key, (k, current) ->
+            current == null || isExpired(current, now) ? candidate : current
+        );
+        if (cached == candidate) {
+            try {
+                VersionRequest request = new VersionRequest()
+                    .setArtifact(new DefaultArtifact(groupId, artifactId, "jar", "LATEST"))
+                    .setRepositories(repositories);
+                DefaultRepositorySystemSession uncachedSession = new DefaultRepositorySystemSession(session)
+                    .setConfigProperty(CONFIG_PROP_VERSION_RESOLVER_NO_CACHE, true);
+                candidate.version.complete(system.resolveVersion(uncachedSession, request).getVersion());
+            } catch (VersionResolutionException | RuntimeException e) {
+                candidate.version.completeExceptionally(e);
+                versions.remove(key, candidate);
+            }
+            if (timeToLive == 0) {
+                versions.remove(key, candidate);
+            }
+        }
+        try {
+            return cached.version.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof VersionResolutionException) {
+                throw (VersionResolutionException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Discard every resolved version
+     */
+    public void clear() {
+        versions.clear();
+    }
+
+
+    private boolean isExpired(CachedVersion cached, long now) {
+        // a lookup in progress is never expired, so concurrent lookups wait for it
+        return cached.version.isDone() && now - cached.created > timeToLive;
+    }
+
+
+    private static String key(String groupId, String artifactId, List<RemoteRepository> repositories) {
+        StringBuilder key = new StringBuilder(groupId).append(':').append(artifactId);
+        for (RemoteRepository repository : repositories) {
+            key.append('|').append(repository.getId()).append('=').append(repository.getUrl());
+        }
+        return key.toString();
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.myjtools.mavenfetcher.FetchedArtifact;
+import org.myjtools.mavenfetcher.MavenFetchException;
+import org.myjtools.mavenfetcher.MavenFetchRequest;
+import org.myjtools.mavenfetcher.MavenFetchResult;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+
+/**
+ * Fetch operation that repeats a previously recorded resolution. The dependency graph
+ * is taken from the lockfile, so no artifact descriptor is read; the artifacts already
+ * present in the local repository are verified against the recorded checksums, and only
+ * the missing ones are downloaded, trying first the repository they were fetched from.
+ */
+public class LockedArtifactFetcher {
+
+    private final RepositorySystem system;
+    private final List<RemoteRepository> remoteRepositories;
+    private final DefaultRepositorySystemSession session;
+    private final MavenFetchRequest request;
+    private final MavenFetchLockfile lockfile;
+    private final Consumer<FetchedArtifact> subscriber;
+    private final Logger logger;
+
+
+    public LockedArtifactFetcher(
+        RepositorySystem system,
+        List<RemoteRepository> remoteRepositories,
+        DefaultRepositorySystemSession session,
+        MavenFetchRequest request,
+        MavenFetchLockfile lockfile,
+        Consumer<FetchedArtifact> subscriber,
+        Logger logger
+    ) {
+        this.system = system;
+        this.remoteRepositories = remoteRepositories;
+        this.session = session;
+        this.request = request;
+        this.lockfile = lockfile;
+        this.subscriber = subscriber;
+        this.logger = logger;
+    }
+
+
+    public MavenFetchResult fetch() {
+        ArtifactDownloader downloader = new ArtifactDownloader(system, session, request::isCancelled, subscriber, logger);
+        Path repositoryPath = session.getLocalRepository().getBasedir().toPath();
+        List<ArtifactResult> artifactResults = new ArrayList<>();
+        List<ArtifactRequest> pending = new ArrayList<>();
+        Map<Artifact, MavenFetchLockfile.Entry> pendingEntries = new HashMap<>();
+        List<Exception> errors = new ArrayList<>();
+
+        for (MavenFetchLockfile.Entry entry : lockfile.entries()) {
+            Path file = repositoryPath.resolve(entry.path);
+            if (Files.exists(file) && !isReusable(entry, file, errors)) {
+                continue;
+            }
+            if (Files.exists(file)) {
+                Artifact artifact = entry.artifact.setFile(file.toFile());
+                artifactResults.add(localResult(entry, artifact));
+                downloader.notifyAvailable(artifact);
+            } else {
+                pending.add(new ArtifactRequest(entry.artifact, repositoriesFor(entry), null));
+                pendingEntries.put(entry.artifact, entry);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            logger.info("Downloading {} locked artifacts missing or corrupted in the local repository", pending.size());
+            List<ArtifactResult> downloaded = downloader.download(pending);
+            errors.addAll(downloader.errors(downloaded));
+            for (ArtifactResult result : downloaded) {
+                if (!result.isResolved()) {
+                    continue;
+                }
+                MavenFetchLockfile.Entry entry = pendingEntries.get(result.getRequest().getArtifact());
+                if (verify(entry, result.getArtifact().getFile().toPath(), errors)) {
+                    artifactResults.add(result);
+                }
+            }
+        }
+
+        // the recorded graph is complete, only the downloads can be cancelled
+        return new MavenFetchResultImpl(
+            request, collectResults(), artifactResults, errors, Collections.emptySet(), session
+        );
+    }
+
+
+    /**
+     * Check a file already present in the local repository. A file that does not match the
+     * lockfile is removed, so it is downloaded again as if it were missing.
+     * @return {@code false} if the file could be neither verified nor removed
+     */
+    private boolean isReusable(MavenFetchLockfile.Entry entry, Path file, List<Exception> errors) {
+        String fileName = ArtifactDownloader.fileName(entry.artifact);
+        try {
+            if (!MavenFetchLockfile.sha256(file).equals(entry.sha256)) {
+                logger.warn("Artifact {} does not match the lockfile checksum, downloading it again", fileName);
+                Files.delete(file);
+            }
+            return true;
+        } catch (IOException e) {
+            errors.add(new MavenFetchException("Could not verify artifact " + fileName, e));
+            return false;
+        }
+    }
+
+
+    private boolean verify(MavenFetchLockfile.Entry entry, Path file, List<Exception> errors) {
+        try {
+            if (MavenFetchLockfile.sha256(file).equals(entry.sha256)) {
+                return true;
+            }
+            errors.add(new MavenFetchException(
+                "Artifact " + ArtifactDownloader.fileName(entry.artifact) + " does not match the lockfile checksum"
+            ));
+        } catch (IOException e) {
+            errors.add(new MavenFetchException(
+                "Could not verify artifact " + ArtifactDownloader.fileName(entry.artifact), e
+            ));
+        }
+        return false;
+    }
+
+
+    private ArtifactResult localResult(MavenFetchLockfile.Entry entry, Artifact artifact) {
+        ArtifactResult result = new ArtifactResult(new ArtifactRequest(entry.artifact, remoteRepositories, null));
+        result.setArtifact(artifact);
+        result.setRepository(recordedRepository(entry));
+        return result;
+    }
+
+
+    private ArtifactRepository recordedRepository(MavenFetchLockfile.Entry entry) {
+        for (RemoteRepository repository : remoteRepositories) {
+            if (repository.getId().equals(entry.repositoryId)) {
+                return repository;
+            }
+        }
+        LocalRepository localRepository = session.getLocalRepository();
+        // preserve the recorded origin when the repository is no longer configured
+        return entry.repositoryId.equals(localRepository.getId()) ?
+            localRepository :
+            new RemoteRepository.Builder(entry.repositoryId, "default", "").build();
+    }
+
+
+    private List<RemoteRepository> repositoriesFor(MavenFetchLockfile.Entry entry) {
+        List<RemoteRepository> repositories = new ArrayList<>(remoteRepositories.size());
+        for (RemoteRepository repository : remoteRepositories) {
+            if (repository.getId().equals(entry.repositoryId)) {
+                repositories.add(0, repository);
+            } else {
+                repositories.add(repository);
+            }
+        }
+        return repositories;
+    }
+
+
+    private List<CollectResult> collectResults() {
+        Map<String, DefaultDependencyNode> nodes = new HashMap<>();
+        for (MavenFetchLockfile.Entry entry : lockfile.entries()) {
+            nodes.put(MavenFetchLockfile.id(entry.artifact), new DefaultDependencyNode(new Dependency(entry.artifact, "")));
+        }
+        for (Map.Entry<String, DefaultDependencyNode> node : nodes.entrySet()) {
+            List<DependencyNode> children = new ArrayList<>();
+            for (String child : lockfile.dependencies(node.getKey())) {
+                DependencyNode childNode = nodes.get(child);
+                if (childNode == null) {
+                    throw new MavenFetchException("Invalid lockfile: unknown artifact " + child);
+                }
+                children.add(childNode);
+            }
+            node.getValue().setChildren(children);
+        }
+        List<CollectResult> results = new ArrayList<>();
+        for (String root : lockfile.roots()) {
+            DependencyNode rootNode = nodes.get(root);
+            if (rootNode == null) {
+                throw new MavenFetchException("Invalid lockfile: unknown artifact " + root);
+            }
+            results.add(new CollectResult(new CollectRequest()).setRoot(rootNode));
+        }
+        return results;
+    }
+
+}
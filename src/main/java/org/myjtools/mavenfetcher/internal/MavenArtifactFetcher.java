@@ -7,63 +7,108 @@ import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
-import org.eclipse.aether.collection.*;
-import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.graph.DependencyNode;
-import org.eclipse.aether.graph.Exclusion;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.*;
-import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+import org.eclipse.aether.util.concurrency.ExecutorUtils;
+import org.myjtools.mavenfetcher.FetchedArtifact;
 import org.myjtools.mavenfetcher.MavenFetchException;
 import org.myjtools.mavenfetcher.MavenFetchRequest;
 import org.myjtools.mavenfetcher.MavenFetchResult;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
 
-public class MavenArtifactFetcher implements DependencySelector {
+/**
+ * Fetch operation of one or several requests. All the requests share the same session,
+ * so descriptors are read once; their roots are collected concurrently, each one with
+ * the scopes, optionals and exclusions of its own request, and the artifacts required
+ * by any of them are downloaded in a single deduplicated phase.
+ * <p>
+ * A cancelled request stops expanding its dependency graph and gets a partial result.
+ * Since transfers are shared among the requests, they are only aborted once every
+ * request has been cancelled.
+ */
+public class MavenArtifactFetcher {
+
+    /*
+     * Number of root artifacts collected concurrently. All of them share the same session
+     * cache, so descriptors resolved while collecting one root are reused by the others.
+     */
+    private static final String CONFIG_PROP_COLLECTOR_THREADS = "mavenfetcher.collector.threads";
+    private static final int DEFAULT_COLLECTOR_THREADS = 5;
+
+
+    private static final class RequestPlan {
+
+        private final MavenFetchRequest request;
+        private final ExclusionMatcher exclusions;
+        private final Set<String> truncated = ConcurrentHashMap.newKeySet();
+        private List<Artifact> artifacts;
+
+        private RequestPlan(MavenFetchRequest request) {
+            this.request = request;
+            this.exclusions = new ExclusionMatcher(request.excludedArtifacts());
+        }
+
+        private DependencySelector newSelector(Artifact root) {
+            return new MavenDependencySelector(
+                request.scopes(),
+                request.isRetrievingOptionals(),
+                exclusions,
+                request::isCancelled,
+                ArtifactIdUtils.toId(root),
+                truncated
+            );
+        }
+    }
+
 
     private final DefaultRepositorySystemSession session;
-    private final Collection<String> scopes;
-    private final boolean retrieveOptionals;
-    private final List<Artifact> artifacts;
-    private final List<Exclusion> exclusions;
+    private final List<RequestPlan> plans;
+    private final LatestVersionResolver latestVersions;
     private final List<RemoteRepository> remoteRepositories;
     private final RepositorySystem system;
     private final Logger logger;
-    private final MavenTransferListener listener;
-
-    private Set<String> retrievedArtifacts;
+    private final Consumer<FetchedArtifact> subscriber;
 
 
     public MavenArtifactFetcher(
         RepositorySystem system,
         List<RemoteRepository> remoteRepositories,
         DefaultRepositorySystemSession session,
-        MavenFetchRequest fetchRequest,
-        MavenTransferListener listener,
+        List<MavenFetchRequest> fetchRequests,
+        LatestVersionResolver latestVersions,
+        Consumer<FetchedArtifact> subscriber,
         Logger logger
     ) {
         this.system = system;
         this.remoteRepositories = remoteRepositories;
-        this.session = session.setDependencySelector(this);
-        this.scopes = fetchRequest.scopes();
-        this.retrieveOptionals = fetchRequest.isRetrievingOptionals();
-        this.exclusions = fetchRequest.excludedArtifacts().stream()
-            .map(this::exclusionFromCoordinates)
-            .collect(Collectors.toList());
-        this.artifacts = fetchRequest.artifacts().stream()
-            .map(this::artifactFromCoordinates)                        
-            .collect(Collectors.toList());
+        this.session = session;
+        this.plans = fetchRequests.stream().map(RequestPlan::new).collect(Collectors.toList());
+        this.latestVersions = latestVersions;
+        this.subscriber = subscriber;
         this.logger = logger;
-        this.listener = listener;
     }
 
 
-    public MavenFetchResult fetch() throws DependencyCollectionException, ArtifactDescriptorException {
+    /**
+     * @return The result of each request, in the same order the requests were given
+     */
+    public List<MavenFetchResult> fetchAll() throws DependencyCollectionException, ArtifactDescriptorException {
         if (logger.isInfoEnabled()) {
             logger.info("Using the following repositories:");
             for (RemoteRepository remoteRepository : remoteRepositories) {
@@ -74,24 +119,140 @@ public class MavenArtifactFetcher implements DependencySelector {
                 }
             }
         }
-        this.retrievedArtifacts = new HashSet<>();
-        List<CollectResult> results = new ArrayList<>();
-        for (Artifact artifact : artifacts) {
-            results.add(collectResult(artifact));
+        resolveArtifacts();
+        List<List<CollectResult>> results = collectResults();
+
+        List<Set<Artifact>> requiredArtifacts = new ArrayList<>(plans.size());
+        Set<Artifact> pending = new LinkedHashSet<>();
+        for (int i = 0; i < plans.size(); i++) {
+            Set<Artifact> required = new LinkedHashSet<>();
+            for (CollectResult result : results.get(i)) {
+                gatherDependency(result.getRoot(), plans.get(i).exclusions, required);
+            }
+            requiredArtifacts.add(required);
+            pending.addAll(required);
+        }
+
+        ArtifactDownloader downloader = new ArtifactDownloader(system, session, this::allCancelled, subscriber, logger);
+        Map<Artifact, ArtifactResult> downloaded = new HashMap<>();
+        for (ArtifactResult artifactResult : downloader.download(pending.stream()
+            .map(artifact -> new ArtifactRequest(artifact, remoteRepositories, null))
+            .collect(Collectors.toList())
+        )) {
+            downloaded.put(artifactResult.getRequest().getArtifact(), artifactResult);
+        }
+
+        List<MavenFetchResult> fetchResults = new ArrayList<>(plans.size());
+        for (int i = 0; i < plans.size(); i++) {
+            List<ArtifactResult> artifactResults = requiredArtifacts.get(i).stream()
+                .map(downloaded::get)
+                .collect(Collectors.toList());
+            fetchResults.add(new MavenFetchResultImpl(
+                plans.get(i).request,
+                results.get(i),
+                artifactResults,
+                downloader.errors(artifactResults),
+                plans.get(i).truncated,
+                session
+            ));
+        }
+        return fetchResults;
+    }
+
+
+    private boolean allCancelled() {
+        for (RequestPlan plan : plans) {
+            if (!plan.request.isCancelled()) {
+                return false;
+            }
         }
-        return new MavenFetchResultImpl(results, session);
+        return true;
     }
 
 
 
-    private CollectResult collectResult(Artifact artifact)
+    private List<List<CollectResult>> collectResults()
     throws ArtifactDescriptorException,
     DependencyCollectionException
     {
+        int roots = plans.stream().mapToInt(plan -> plan.artifacts.size()).sum();
+        int threads = Math.min(
+            roots,
+            ExecutorUtils.threadCount(session, DEFAULT_COLLECTOR_THREADS, CONFIG_PROP_COLLECTOR_THREADS)
+        );
+        Executor executor = ExecutorUtils.executor(threads, getClass().getSimpleName() + "-");
+        try {
+            List<List<FutureTask<CollectResult>>> tasks = new ArrayList<>();
+            for (RequestPlan plan : plans) {
+                List<FutureTask<CollectResult>> planTasks = new ArrayList<>();
+                for (Artifact artifact : plan.artifacts) {
+                    FutureTask<CollectResult> task = new FutureTask<>(() -> collectResult(artifact, plan));
+                    planTasks.add(task);
+                    executor.execute(task);
+                }
+                tasks.add(planTasks);
+            }
+            List<List<CollectResult>> results = new ArrayList<>();
+            for (List<FutureTask<CollectResult>> planTasks : tasks) {
+                List<CollectResult> planResults = new ArrayList<>();
+                for (FutureTask<CollectResult> task : planTasks) {
+                    planResults.add(awaitCollectResult(task));
+                }
+                results.add(planResults);
+            }
+            return results;
+        } finally {
+            ExecutorUtils.shutdown(executor);
+        }
+    }
+
+
+    private CollectResult awaitCollectResult(FutureTask<CollectResult> task)
+    throws ArtifactDescriptorException,
+    DependencyCollectionException
+    {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenFetchException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ArtifactDescriptorException) {
+                throw (ArtifactDescriptorException) cause;
+            } else if (cause instanceof DependencyCollectionException) {
+                throw (DependencyCollectionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new MavenFetchException(cause);
+        }
+    }
+
+
+    private CollectResult collectResult(Artifact artifact, RequestPlan plan)
+    throws ArtifactDescriptorException,
+    DependencyCollectionException
+    {
+        if (artifact == null || plan.request.isCancelled()) {
+            return cancelledResult(null);
+        }
+        // each root is collected with its own selector, sharing the cache and data of the session
+        DefaultRepositorySystemSession rootSession = new DefaultRepositorySystemSession(session)
+            .setDependencySelector(plan.newSelector(artifact));
+
         ArtifactDescriptorRequest descriptorRequest = new ArtifactDescriptorRequest();
         descriptorRequest.setArtifact(artifact);
         descriptorRequest.setRepositories(remoteRepositories);
-        ArtifactDescriptorResult descriptorResult = system.readArtifactDescriptor(session, descriptorRequest);
+        ArtifactDescriptorResult descriptorResult;
+        try {
+            descriptorResult = system.readArtifactDescriptor(rootSession, descriptorRequest);
+        } catch (ArtifactDescriptorException e) {
+            if (!plan.request.isCancelled()) {
+                throw e;
+            }
+            return cancelledResult(e);
+        }
 
         CollectRequest request = new CollectRequest();
         request.setRootArtifact(descriptorResult.getArtifact());
@@ -99,107 +260,127 @@ public class MavenArtifactFetcher implements DependencySelector {
         request.setManagedDependencies(descriptorResult.getManagedDependencies());
         request.setRepositories(remoteRepositories);
 
-        CollectResult result = system.collectDependencies(session, request);
-        retrieveDependency(result.getRoot());
-        this.listener.failedTransfers()
-            .forEach(file -> result.addException(new MavenFetchException("Could not fetch artifact "+file)));
-        return result;
-    }
-
-
-    private DefaultArtifact artifactFromCoordinates (String coordinates) {
         try {
-            return new DefaultArtifact(coordinates);
-        } catch (IllegalArgumentException e) {
-            // if version is not supplied, try to use the latest
-            String[] parts = coordinates.split(":");
-            if (parts.length == 2) {
-                try {
-                    String groupId = parts[0];
-                    String artifactId = parts[1];
-                    VersionRequest versionRequest = new VersionRequest()
-                        .setArtifact(new DefaultArtifact(groupId, artifactId, "jar", "LATEST"))
-                        .setRepositories(this.remoteRepositories);                    
-                    String version = system.resolveVersion(session, versionRequest).getVersion();
-                    return new DefaultArtifact(groupId, artifactId, "jar", version);
-                } catch (VersionResolutionException ex) {
-                    throw new IllegalArgumentException("Cannot resolve artifact version: "+ex.getMessage(), ex);
-                }
+            return system.collectDependencies(rootSession, request);
+        } catch (DependencyCollectionException e) {
+            if (!plan.request.isCancelled()) {
+                throw e;
             }
-            throw e;
+            // the parent of a dependency whose descriptor could not be read is unknown
+            plan.truncated.add(ArtifactIdUtils.toId(artifact));
+            return e.getResult();
         }
     }
 
 
-    private Exclusion exclusionFromCoordinates (String coordinates) {
-        String[] parts = coordinates.split(":");
-        if (parts.length >= 2) {
-            String groupId = parts[0];
-            String artifactId = parts[1];
-            return new Exclusion(groupId, artifactId, "jar", null);
-        } else {
-            throw new IllegalArgumentException("Invalid exclusion '"+coordinates+"'");
+    /*
+     * Result of a root artifact that was not collected because the request was cancelled
+     */
+    private static CollectResult cancelledResult(Exception cause) {
+        CollectResult result = new CollectResult(new CollectRequest());
+        if (cause != null) {
+            result.addException(cause);
         }
+        return result;
     }
 
 
-
-    private void retrieveDependency(DependencyNode node) {
-        if (node.getArtifact() != null) {
-           if (isExcluded(node.getArtifact())) {
-               return;
-           }
-            try {
-                ArtifactRequest request = new ArtifactRequest(
-                    node.getArtifact(), remoteRepositories, null
-                );
-                system.resolveArtifact(session, request);
-            } catch (ArtifactResolutionException e) {
-                if (!(e.getCause() instanceof ArtifactNotFoundException)) {
-                    logger.debug("<caused by>", e);
+    /*
+     * Coordinates without version are resolved to the latest version concurrently, each
+     * distinct artifact once even if several requests include it
+     */
+    private void resolveArtifacts() {
+        Map<String, Artifact> artifacts = new HashMap<>();
+        Set<String> versionless = new LinkedHashSet<>();
+        for (RequestPlan plan : plans) {
+            for (String coordinates : plan.request.artifacts()) {
+                if (artifacts.containsKey(coordinates) || versionless.contains(coordinates)) {
+                    continue;
+                }
+                try {
+                    artifacts.put(coordinates, new DefaultArtifact(coordinates));
+                } catch (IllegalArgumentException e) {
+                    if (coordinates.split(":").length != 2) {
+                        throw e;
+                    }
+                    versionless.add(coordinates);
                 }
             }
         }
-        for (DependencyNode child : node.getChildren()) {
-            retrieveDependency(child);
-        }
-    }
-
-
-    private boolean isExcluded(Artifact artifact) {
-        for (Exclusion exclusion : exclusions) {
-            if (exclusion.getGroupId().equals(artifact.getGroupId()) &&
-                exclusion.getArtifactId().equals(artifact.getArtifactId())
-            ) {
-                return true;
+        int threads = Math.min(
+            versionless.size(),
+            ExecutorUtils.threadCount(session, DEFAULT_COLLECTOR_THREADS, CONFIG_PROP_COLLECTOR_THREADS)
+        );
+        Executor executor = ExecutorUtils.executor(threads, getClass().getSimpleName() + "-");
+        try {
+            Map<String, FutureTask<Artifact>> tasks = new LinkedHashMap<>();
+            for (String coordinates : versionless) {
+                FutureTask<Artifact> task = new FutureTask<>(() -> latestArtifact(coordinates));
+                tasks.put(coordinates, task);
+                executor.execute(task);
+            }
+            for (Map.Entry<String, FutureTask<Artifact>> task : tasks.entrySet()) {
+                try {
+                    artifacts.put(task.getKey(), awaitLatestArtifact(task.getValue()));
+                } catch (IllegalArgumentException e) {
+                    // the lookup was aborted by the cancellation, so the root is left uncollected
+                    if (!allCancelled()) {
+                        throw e;
+                    }
+                    artifacts.put(task.getKey(), null);
+                }
             }
+        } finally {
+            ExecutorUtils.shutdown(executor);
+        }
+        for (RequestPlan plan : plans) {
+            plan.artifacts = plan.request.artifacts().stream().map(artifacts::get).collect(Collectors.toList());
         }
-        return false;
     }
 
 
-    @Override
-    public boolean selectDependency(Dependency dependency) {
-        String artifactKey = key(dependency.getArtifact());
-        if (this.retrievedArtifacts.contains(artifactKey) ||
-            (dependency.isOptional() && !retrieveOptionals) ||
-            (!dependency.getScope().isEmpty() && !scopes.contains(dependency.getScope()))
-        ) {
-            return false;
+    private Artifact latestArtifact(String coordinates) {
+        String[] parts = coordinates.split(":");
+        String groupId = parts[0];
+        String artifactId = parts[1];
+        try {
+            String version = latestVersions.resolve(system, session, groupId, artifactId, remoteRepositories);
+            return new DefaultArtifact(groupId, artifactId, "jar", version);
+        } catch (VersionResolutionException e) {
+            throw new IllegalArgumentException("Cannot resolve artifact version: " + e.getMessage(), e);
         }
-        this.retrievedArtifacts.add(artifactKey);
-        return true;
     }
 
 
-    @Override
-    public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
-        return this;
+    private Artifact awaitLatestArtifact(FutureTask<Artifact> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MavenFetchException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MavenFetchException(e.getCause());
+        }
     }
 
 
-    private static String key(Artifact artifact) {
-        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion();
+    private void gatherDependency(DependencyNode node, ExclusionMatcher exclusions, Set<Artifact> pending) {
+        if (node == null) {
+            return;
+        }
+        if (node.getArtifact() != null) {
+            // dependencies are excluded during collection, but requested roots are not
+            if (exclusions.matches(node.getArtifact())) {
+                return;
+            }
+            pending.add(node.getArtifact());
+        }
+        for (DependencyNode child : node.getChildren()) {
+            gatherDependency(child, exclusions, pending);
+        }
     }
 
 }
@@ -0,0 +1,154 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+
+/**
+ * Dependency selector applied to the collection of a single root artifact.
+ * <p>
+ * Each root gets its own instance, so the dependencies selected for one root
+ * do not depend on the other roots of the request nor on the order in which
+ * they are collected. Excluded artifacts are rejected here, so their descriptors
+ * are never read and their dependencies are never expanded.
+ * <p>
+ * Since the selector is invoked for every edge visited by the collector, the
+ * already selected artifacts are indexed by group, artifact and version in nested
+ * concurrent maps instead of by a composed key; checking an edge does not allocate
+ * any object unless its artifact is selected for the first time.
+ * <p>
+ * Once the request is cancelled, no further dependency is selected, so the collector
+ * stops reading descriptors. The artifacts whose dependencies were left unexpanded
+ * are recorded as truncated, so the result can mark them as incomplete.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+class MavenDependencySelector implements DependencySelector {
+
+    private static final Function<String, ConcurrentMap<String, Set<String>>> NEW_GROUP =
+        groupId -> new ConcurrentHashMap<>();
+    private static final Function<String, Set<String>> NEW_ARTIFACT =
+        artifactId -> ConcurrentHashMap.newKeySet();
+
+    private final Collection<String> scopes;
+    private final boolean retrieveOptionals;
+    private final ExclusionMatcher exclusions;
+    private final BooleanSupplier cancelled;
+    private final String rootId;
+    private final Set<String> truncated;
+    private final ConcurrentMap<String, ConcurrentMap<String, Set<String>>> selectedArtifacts =
+        new ConcurrentHashMap<>();
+
+
+    /**
+     * @param cancelled Cancellation condition of the request
+     * @param rootId The id of the root artifact being collected
+     * @param truncated The set where the ids of truncated artifacts are recorded
+     */
+    MavenDependencySelector(
+        Collection<String> scopes,
+        boolean retrieveOptionals,
+        ExclusionMatcher exclusions,
+        BooleanSupplier cancelled,
+        String rootId,
+        Set<String> truncated
+    ) {
+        this.scopes = scopes;
+        this.retrieveOptionals = retrieveOptionals;
+        this.exclusions = exclusions;
+        this.cancelled = cancelled;
+        this.rootId = rootId;
+        this.truncated = truncated;
+    }
+
+
+    @Override
+    public boolean selectDependency(Dependency dependency) {
+        if (isRejected(dependency)) {
+            return false;
+        }
+        if (cancelled.getAsBoolean()) {
+            // the node being expanded is unknown here, so the whole root is marked
+            truncated.add(rootId);
+            return false;
+        }
+        return firstSelection(dependency.getArtifact());
+    }
+
+
+    @Override
+    public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+        if (cancelled.getAsBoolean() && context.getArtifact() != null) {
+            return new TruncatedSelector(ArtifactIdUtils.toId(context.getArtifact()));
+        }
+        return this;
+    }
+
+
+    /*
+     * Whether the dependency is excluded, optional or out of scope, regardless of cancellation
+     */
+    private boolean isRejected(Dependency dependency) {
+        return exclusions.matches(dependency.getArtifact()) ||
+            (dependency.isOptional() && !retrieveOptionals) ||
+            (!dependency.getScope().isEmpty() && !scopes.contains(dependency.getScope()));
+    }
+
+
+    /*
+     * Register the artifact as selected, returning false if it was already registered
+     */
+    private boolean firstSelection(Artifact artifact) {
+        ConcurrentMap<String, Set<String>> artifactIds = selectedArtifacts.get(artifact.getGroupId());
+        if (artifactIds == null) {
+            artifactIds = selectedArtifacts.computeIfAbsent(artifact.getGroupId(), NEW_GROUP);
+        }
+        Set<String> versions = artifactIds.get(artifact.getArtifactId());
+        if (versions == null) {
+            versions = artifactIds.computeIfAbsent(artifact.getArtifactId(), NEW_ARTIFACT);
+        }
+        // plain lookup first, since adding an existing element locks the map bin
+        return !versions.contains(artifact.getVersion()) && versions.add(artifact.getVersion());
+    }
+
+
+    /*
+     * Selector of the nodes expanded after the cancellation, rejecting every dependency
+     * and recording the node as truncated only if it actually had any
+     */
+    private final class TruncatedSelector implements DependencySelector {
+
+        private final String id;
+
+        private TruncatedSelector(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean selectDependency(Dependency dependency) {
+            if (!isRejected(dependency)) {
+                truncated.add(id);
+            }
+            return false;
+        }
+
+        @Override
+        public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,291 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+import org.myjtools.mavenfetcher.MavenFetchRequest;
+import org.myjtools.mavenfetcher.MavenFetchResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+
+/**
+ * Record of a resolved fetch operation, allowing to repeat it later without reading
+ * any artifact descriptor nor collecting dependencies again.
+ * <p>
+ * The lockfile is a plain text file with one tab-separated record per line:
+ * <pre>
+ * request     &lt;requested coordinates, separated with commas&gt;
+ * scopes      &lt;requested scopes, separated with commas&gt;
+ * optionals   &lt;whether optional dependencies were requested&gt;
+ * exclusions  &lt;excluded artifacts, separated with commas&gt;
+ * artifact    &lt;id&gt; &lt;repository id&gt; &lt;SHA-256&gt; &lt;path relative to the local repository&gt;
+ * dependency  &lt;artifact id&gt; &lt;dependency id&gt;
+ * root        &lt;artifact id&gt;
+ * </pre>
+ */
+public class MavenFetchLockfile {
+
+    static final class Entry {
+
+        final Artifact artifact;
+        final String repositoryId;
+        final String sha256;
+        final String path;
+
+        private Entry(Artifact artifact, String repositoryId, String sha256, String path) {
+            this.artifact = artifact;
+            this.repositoryId = repositoryId;
+            this.sha256 = sha256;
+            this.path = path;
+        }
+    }
+
+
+    private static final String HEADER = "# maven-fetcher lockfile";
+    private static final String REQUEST = "request";
+    private static final String SCOPES = "scopes";
+    private static final String OPTIONALS = "optionals";
+    private static final String EXCLUSIONS = "exclusions";
+    private static final String ARTIFACT = "artifact";
+    private static final String DEPENDENCY = "dependency";
+    private static final String ROOT = "root";
+
+    private final Map<String, String> request = new LinkedHashMap<>();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, List<String>> dependencies = new LinkedHashMap<>();
+    private final List<String> roots = new ArrayList<>();
+
+
+    private MavenFetchLockfile() { }
+
+
+    /**
+     * Create a lockfile recording the given result
+     * @throws IllegalArgumentException if the result was not produced by a fetcher
+     * @throws IOException if the fetched files cannot be read
+     */
+    public static MavenFetchLockfile of(MavenFetchResult result) throws IOException {
+        if (!(result instanceof MavenFetchResultImpl)) {
+            throw new IllegalArgumentException("Only results produced by a fetcher can be locked");
+        }
+        MavenFetchResultImpl resultImpl = (MavenFetchResultImpl) result;
+        MavenFetchLockfile lockfile = new MavenFetchLockfile();
+        lockfile.request.putAll(requestValues(resultImpl.request()));
+        for (DependencyNode root : resultImpl.roots()) {
+            String id = lockfile.record(root, resultImpl);
+            if (id != null) {
+                lockfile.roots.add(id);
+            }
+        }
+        return lockfile;
+    }
+
+
+    /**
+     * Read a lockfile previously written
+     * @throws IOException if the file cannot be read or has not a valid format
+     */
+    public static MavenFetchLockfile read(Path file) throws IOException {
+        MavenFetchLockfile lockfile = new MavenFetchLockfile();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                lockfile.parse(line.split("\t", -1), file);
+            }
+        }
+        return lockfile;
+    }
+
+
+    /**
+     * Write the lockfile to the given path, replacing any previous content
+     */
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> value : request.entrySet()) {
+                writeLine(writer, value.getKey(), value.getValue());
+            }
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry artifact = entry.getValue();
+                writeLine(writer, ARTIFACT, entry.getKey(), artifact.repositoryId, artifact.sha256, artifact.path);
+            }
+            for (Map.Entry<String, List<String>> dependency : dependencies.entrySet()) {
+                for (String child : dependency.getValue()) {
+                    writeLine(writer, DEPENDENCY, dependency.getKey(), child);
+                }
+            }
+            for (String root : roots) {
+                writeLine(writer, ROOT, root);
+            }
+        }
+    }
+
+
+    /**
+     * @return Whether this lockfile was recorded for an equivalent request
+     */
+    public boolean matches(MavenFetchRequest fetchRequest) {
+        return request.equals(requestValues(fetchRequest));
+    }
+
+
+    /**
+     * @return A new request equivalent to the one this lockfile was recorded for
+     */
+    public MavenFetchRequest request() {
+        MavenFetchRequest fetchRequest = new MavenFetchRequest(values(REQUEST))
+            .scopes(values(SCOPES))
+            .excludingArtifacts(values(EXCLUSIONS));
+        if (Boolean.parseBoolean(request.get(OPTIONALS))) {
+            fetchRequest.retrievingOptionals();
+        }
+        return fetchRequest;
+    }
+
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+
+    List<String> dependencies(String id) {
+        return dependencies.getOrDefault(id, Collections.emptyList());
+    }
+
+
+    List<String> roots() {
+        return roots;
+    }
+
+
+    static String id(Artifact artifact) {
+        return ArtifactIdUtils.toId(artifact);
+    }
+
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[32 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return ChecksumUtils.toHexString(digest.digest());
+    }
+
+
+    private String record(DependencyNode node, MavenFetchResultImpl result) throws IOException {
+        ArtifactResult artifactResult = result.artifactResult(node.getArtifact());
+        if (artifactResult == null) {
+            return null;
+        }
+        String id = id(node.getArtifact());
+        if (entries.containsKey(id)) {
+            return id;
+        }
+        Path file = artifactResult.getArtifact().getFile().toPath();
+        Path repositoryPath = result.repositoryPath();
+        String path = file.startsWith(repositoryPath) ?
+            repositoryPath.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/") :
+            file.toString();
+        String repositoryId = artifactResult.getRepository() == null ? "" : artifactResult.getRepository().getId();
+        entries.put(id, new Entry(node.getArtifact(), repositoryId, sha256(file), path));
+        List<String> children = new ArrayList<>();
+        for (DependencyNode child : node.getChildren()) {
+            String childId = record(child, result);
+            if (childId != null) {
+                children.add(childId);
+            }
+        }
+        dependencies.put(id, children);
+        return id;
+    }
+
+
+    private void parse(String[] fields, Path file) throws IOException {
+        switch (fields[0]) {
+            case REQUEST:
+            case SCOPES:
+            case OPTIONALS:
+            case EXCLUSIONS:
+                checkFields(fields, 2, file);
+                request.put(fields[0], fields[1]);
+                break;
+            case ARTIFACT:
+                checkFields(fields, 5, file);
+                entries.put(fields[1], new Entry(new DefaultArtifact(fields[1]), fields[2], fields[3], fields[4]));
+                break;
+            case DEPENDENCY:
+                checkFields(fields, 3, file);
+                dependencies.computeIfAbsent(fields[1], id -> new ArrayList<>()).add(fields[2]);
+                break;
+            case ROOT:
+                checkFields(fields, 2, file);
+                roots.add(fields[1]);
+                break;
+            default:
+                throw new IOException("Invalid lockfile " + file + " : unknown record '" + fields[0] + "'");
+        }
+    }
+
+
+    private String[] values(String key) {
+        String value = request.getOrDefault(key, "");
+        return value.isEmpty() ? new String[0] : value.split(",");
+    }
+
+
+    private static void checkFields(String[] fields, int expected, Path file) throws IOException {
+        if (fields.length != expected) {
+            throw new IOException("Invalid lockfile " + file + " : malformed record '" + fields[0] + "'");
+        }
+    }
+
+
+    private static void writeLine(BufferedWriter writer, String... fields) throws IOException {
+        writer.write(String.join("\t", fields));
+        writer.newLine();
+    }
+
+
+    private static Map<String, String> requestValues(MavenFetchRequest request) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(REQUEST, String.join(",", request.artifacts()));
+        values.put(SCOPES, String.join(",", request.scopes()));
+        values.put(OPTIONALS, String.valueOf(request.isRetrievingOptionals()));
+        values.put(EXCLUSIONS, String.join(",", request.excludedArtifacts()));
+        return values;
+    }
+
+}
@@ -7,63 +7,177 @@ import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.CollectResult;
 import org.eclipse.aether.graph.DependencyNode;
-import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
 import org.myjtools.mavenfetcher.FetchedArtifact;
+import org.myjtools.mavenfetcher.MavenFetchException;
+import org.myjtools.mavenfetcher.MavenFetchRequest;
 import org.myjtools.mavenfetcher.MavenFetchResult;
+import org.myjtools.mavenfetcher.TransferStatistics;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Optional;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
 public class MavenFetchResultImpl implements MavenFetchResult {
 
+    private final MavenFetchRequest request;
     private final List<CollectResult> results;
+    private final Map<Artifact, ArtifactResult> artifactResults;
+    private final List<Exception> fetchErrors;
+    private final Set<String> truncated;
+    private final Path repositoryPath;
     private final List<FetchedArtifact> rootArtifacts;
-
-
-    MavenFetchResultImpl(List<CollectResult> results, DefaultRepositorySystemSession session) {
+    private final List<FetchedArtifact> allArtifacts;
+    private final boolean complete;
+    private final TransferStatistics transferStatistics;
+
+
+    MavenFetchResultImpl(
+        MavenFetchRequest request,
+        List<CollectResult> results,
+        List<ArtifactResult> artifactResults,
+        List<Exception> fetchErrors,
+        Set<String> truncated,
+        DefaultRepositorySystemSession session
+    ) {
+        this.request = request;
         this.results = results;
-        LocalRepositoryManager localRepositoryManager = session.getLocalRepositoryManager();
-        Path repositoryPath = localRepositoryManager.getRepository().getBasedir().toPath();
-        this.rootArtifacts = results.stream()
-                .map(CollectResult::getRoot)
-                .map(root -> collectArtifact(root, localRepositoryManager, repositoryPath))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        this.artifactResults = new HashMap<>();
+        for (ArtifactResult artifactResult : artifactResults) {
+            this.artifactResults.put(artifactResult.getRequest().getArtifact(), artifactResult);
+        }
+        this.fetchErrors = new ArrayList<>(fetchErrors);
+        this.truncated = truncated;
+        this.repositoryPath = session.getLocalRepository().getBasedir().toPath();
+        Map<String, Optional<FetchedArtifact>> interned = new HashMap<>();
+        Set<String> visiting = new HashSet<>();
+        List<FetchedArtifact> roots = new ArrayList<>(results.size());
+        boolean allRootsFetched = true;
+        for (CollectResult result : results) {
+            Optional<FetchedArtifact> root = result.getRoot() == null ?
+                Optional.empty() :
+                collectArtifact(result.getRoot(), interned, visiting);
+            if (root.isPresent()) {
+                roots.add(root.get());
+            } else if (result.getRoot() == null || this.artifactResults.containsKey(result.getRoot().getArtifact())) {
+                // excluded roots are never requested, so they are not missing
+                allRootsFetched = false;
+            }
+        }
+        this.rootArtifacts = roots;
+        this.allArtifacts = FetchedArtifact.withDependencies(rootArtifacts);
+        this.complete = allRootsFetched && allArtifacts.stream().allMatch(FetchedArtifact::isComplete);
+        if (!complete && request.isCancelled()) {
+            this.fetchErrors.add(new MavenFetchException(
+                request.cancellationToken() != null && request.cancellationToken().isCancelled() ?
+                    "Fetch operation cancelled before completion" :
+                    "Fetch operation deadline exceeded before completion"
+            ));
+        }
+        TransferListener listener = session.getTransferListener();
+        this.transferStatistics = listener instanceof MavenTransferListener ?
+            ((MavenTransferListener) listener).statistics() :
+            TransferStatistics.EMPTY;
     }
 
 
+    /*
+     * The collected graph may include the same artifact in several paths; each artifact
+     * is converted only once and the resulting instance is shared among its dependents
+     */
     private Optional<FetchedArtifact> collectArtifact(
         DependencyNode node,
-        LocalRepositoryManager localRepositoryManager,
-        Path repositoryPath
+        Map<String, Optional<FetchedArtifact>> interned,
+        Set<String> visiting
     ) {
         Artifact artifact = node.getArtifact();
-        Path localPath = repositoryPath.resolve(
-            localRepositoryManager.getPathForLocalArtifact(artifact)
-        );
-        // the existence of the dependency node does not imply the artifact exists
-        if (!Files.exists(localPath)) {
+        String id = ArtifactIdUtils.toId(artifact);
+        Optional<FetchedArtifact> collected = interned.get(id);
+        if (collected != null) {
+            return collected;
+        }
+        if (!visiting.add(id)) {
+            // dependency cycle
             return Optional.empty();
         }
-        List<FetchedArtifact> dependencies = node.getChildren().stream()
-            .map(child -> collectArtifact(child, localRepositoryManager, repositoryPath))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
-
-        return Optional.of(new FetchedArtifact(
-            artifact.getGroupId(),
-            artifact.getArtifactId(),
-            artifact.getVersion(),
-            localPath,
-            dependencies
-        ));
+        // the existence of the dependency node does not imply the artifact was fetched
+        ArtifactResult artifactResult = artifactResult(artifact);
+        BasicFileAttributes attributes = artifactResult == null ? null : attributes(artifactResult);
+        if (attributes == null) {
+            collected = Optional.empty();
+        } else {
+            List<FetchedArtifact> dependencies = new ArrayList<>(node.getChildren().size());
+            boolean complete = !truncated.contains(id);
+            for (DependencyNode child : node.getChildren()) {
+                boolean cycle = visiting.contains(ArtifactIdUtils.toId(child.getArtifact()));
+                Optional<FetchedArtifact> dependency = collectArtifact(child, interned, visiting);
+                if (dependency.isPresent()) {
+                    complete &= dependency.get().isComplete();
+                    if (!dependencies.contains(dependency.get())) {
+                        dependencies.add(dependency.get());
+                    }
+                } else if (!cycle) {
+                    complete = false;
+                }
+            }
+            collected = Optional.of(new FetchedArtifact(
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getVersion(),
+                artifactResult.getArtifact().getFile().toPath(),
+                attributes.size(),
+                attributes.lastModifiedTime().toInstant(),
+                complete,
+                Collections.unmodifiableList(dependencies)
+            ));
+        }
+        visiting.remove(id);
+        interned.put(id, collected);
+        return collected;
+    }
+
+
+    /*
+     * The file returned by the resolver is reused, so each artifact is checked only once
+     * regardless the number of paths it appears in
+     */
+    private static BasicFileAttributes attributes(ArtifactResult artifactResult) {
+        try {
+            return Files.readAttributes(artifactResult.getArtifact().getFile().toPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+
+    MavenFetchRequest request() {
+        return request;
+    }
+
+
+    List<DependencyNode> roots() {
+        return results.stream().map(CollectResult::getRoot).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+
+    /**
+     * @return The resolution result of the given collected artifact, or null if it was not resolved
+     */
+    ArtifactResult artifactResult(Artifact artifact) {
+        ArtifactResult result = artifactResults.get(artifact);
+        return result == null || !result.isResolved() ? null : result;
+    }
+
+
+    Path repositoryPath() {
+        return repositoryPath;
     }
 
 
@@ -75,22 +189,34 @@ public class MavenFetchResultImpl implements MavenFetchResult {
 
     @Override
     public Stream<FetchedArtifact> allArtifacts() {
-        return Stream.concat(
-            rootArtifacts.stream(),
-            rootArtifacts.stream().flatMap(FetchedArtifact::allDepedencies)
-        );
+        return allArtifacts.stream();
+    }
+
+
+    @Override
+    public boolean isComplete() {
+        return complete;
     }
 
 
     @Override
     public boolean hasErrors() {
-        return results.stream().anyMatch(it -> !it.getExceptions().isEmpty());
+        return !fetchErrors.isEmpty() || results.stream().anyMatch(it -> !it.getExceptions().isEmpty());
     }
 
 
     @Override
     public Stream<Exception> errors() {
-        return results.stream().flatMap(it -> it.getExceptions().stream());
+        return Stream.concat(
+            results.stream().flatMap(it -> it.getExceptions().stream()),
+            fetchErrors.stream()
+        );
+    }
+
+
+    @Override
+    public TransferStatistics transferStatistics() {
+        return transferStatistics;
     }
 
 
@@ -0,0 +1,134 @@
+/**
+ * @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Repository cache shared by every session created by a fetcher, so descriptors and
+ * effective models survive between fetch operations. Failures are not kept here: the
+ * descriptors that fail to load only last for the collection that read them, and the
+ * version resolutions for the session, so they honor its update policy.
+ * <p>
+ * Entries are evicted in least-recently-used order once the maximum size is reached,
+ * and expire after the configured time-to-live. Closeable entries (such as the HTTP
+ * connection state) are kept apart and never evicted, since they may be in use by a
+ * concurrent fetch; they are released when the cache is closed.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public class MavenFetcherCache implements RepositoryCache, Closeable {
+
+    private static final class CachedValue {
+
+        private final Object value;
+        private final long created;
+
+        private CachedValue(Object value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+
+
+    private final long timeToLive;
+    private final Map<Object, CachedValue> entries;
+    private final Map<Object, Object> resources = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param maxEntries The maximum number of evictable entries
+     * @param timeToLive The time, in milliseconds, that an entry is kept since it was stored
+     */
+    public MavenFetcherCache(int maxEntries, long timeToLive) {
+        if (maxEntries < 0 || timeToLive < 0) {
+            throw new IllegalArgumentException("Cache size and time-to-live cannot be negative");
+        }
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<Object, CachedValue>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedValue> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        Object resource = resources.get(key);
+        if (resource != null) {
+            return resource;
+        }
+        synchronized (entries) {
+            CachedValue entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.created > timeToLive) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        if (data instanceof Closeable) {
+            resources.put(key, data);
+            return;
+        }
+        synchronized (entries) {
+            if (data == null) {
+                resources.remove(key);
+                entries.remove(key);
+            } else {
+                entries.put(key, new CachedValue(data, System.currentTimeMillis()));
+            }
+        }
+    }
+
+
+    /**
+     * Discard every evictable entry, keeping the shared resources
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+
+    /**
+     * Discard every entry and release the shared resources
+     */
+    @Override
+    public void close() throws IOException {
+        clear();
+        IOException error = null;
+        for (Object resource : resources.values()) {
+            try {
+                ((Closeable) resource).close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        resources.clear();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+}
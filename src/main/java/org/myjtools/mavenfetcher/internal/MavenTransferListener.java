@@ -7,46 +7,183 @@ package org.myjtools.mavenfetcher.internal;
 import org.eclipse.aether.transfer.TransferCancelledException;
 import org.eclipse.aether.transfer.TransferEvent;
 import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+import org.myjtools.mavenfetcher.LatencyHistogram;
+import org.myjtools.mavenfetcher.RepositoryTransferStatistics;
+import org.myjtools.mavenfetcher.TransferStatistics;
+import org.myjtools.mavenfetcher.TransferStatistics.ResourceType;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
 
 
+/**
+ * Transfer listener that logs the downloaded artifacts and gathers transfer metrics
+ * per remote repository.
+ * <p>
+ * Events are received concurrently from the connector worker threads, so every
+ * metric is kept in lock-free counters; {@link #statistics()} takes an immutable
+ * snapshot of them.
+ * <p>
+ * The listener also aborts every transfer once the fetch operation is cancelled.
+ */
 public class MavenTransferListener implements TransferListener {
 
+    /*
+     * Upper bounds, in milliseconds, of the latency histogram buckets
+     */
+    private static final long[] LATENCY_BOUNDS = { 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000 };
+
+
+    private static final class Histogram {
+
+        private final AtomicLongArray counts = new AtomicLongArray(LATENCY_BOUNDS.length + 1);
+        private final LongAdder totalMillis = new LongAdder();
+
+        private void record(long millis) {
+            int bucket = 0;
+            while (bucket < LATENCY_BOUNDS.length && millis > LATENCY_BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            totalMillis.add(millis);
+        }
+
+        private LatencyHistogram snapshot() {
+            long[] values = new long[counts.length()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counts.get(i);
+            }
+            return new LatencyHistogram(LATENCY_BOUNDS, values, totalMillis.sum());
+        }
+    }
+
+
+    private static final class RepositoryCounters {
+
+        private final String url;
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder timeToFirstByte = new LongAdder();
+        private final LongAdder firstBytes = new LongAdder();
+        private final Map<ResourceType, Histogram> latencies = new EnumMap<>(ResourceType.class);
+
+        private RepositoryCounters(String url) {
+            this.url = url;
+            // populated beforehand so the map is never modified concurrently
+            for (ResourceType type : ResourceType.values()) {
+                latencies.put(type, new Histogram());
+            }
+        }
+
+        private void ended(TransferResource resource) {
+            long now = System.currentTimeMillis();
+            active.decrementAndGet();
+            lastEnd.accumulateAndGet(now, Math::max);
+            latencies.get(ResourceType.of(resource.getResourceName()))
+                .record(Math.max(0, now - resource.getTransferStartTime()));
+        }
+
+        private RepositoryTransferStatistics snapshot(String id) {
+            Map<ResourceType, LatencyHistogram> histograms = new EnumMap<>(ResourceType.class);
+            latencies.forEach((type, histogram) -> {
+                LatencyHistogram snapshot = histogram.snapshot();
+                if (snapshot.count() > 0) {
+                    histograms.put(type, snapshot);
+                }
+            });
+            long start = firstStart.get();
+            long end = lastEnd.get();
+            long firstByteCount = firstBytes.sum();
+            return new RepositoryTransferStatistics(
+                id,
+                url,
+                bytes.sum(),
+                succeeded.sum(),
+                failed.sum(),
+                active.get(),
+                end < start ? Duration.ZERO : Duration.ofMillis(end - start),
+                firstByteCount == 0 ? Duration.ZERO : Duration.ofMillis(timeToFirstByte.sum() / firstByteCount),
+                histograms
+            );
+        }
+    }
+
 
     private final Logger logger;
-    private final List<String> succededTransfers = new ArrayList<>();
-    private final List<String> failedTransfers = new ArrayList<>();
+    private final BooleanSupplier cancelled;
+    private final Set<String> succededTransfers = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedTransfers = ConcurrentHashMap.newKeySet();
+    private final Map<String, RepositoryCounters> repositories = new ConcurrentHashMap<>();
 
 
     public MavenTransferListener(Logger logger) {
+        this(logger, () -> false);
+    }
+
+
+    /**
+     * @param cancelled Condition that, when met, makes every transfer to be aborted
+     */
+    public MavenTransferListener(Logger logger, BooleanSupplier cancelled) {
         Objects.requireNonNull(logger);
+        Objects.requireNonNull(cancelled);
         this.logger = logger;
+        this.cancelled = cancelled;
     }
 
 
     public List<String> succededTransfers() {
-        return Collections.unmodifiableList(succededTransfers);
+        return Collections.unmodifiableList(new ArrayList<>(succededTransfers));
     }
 
 
     public List<String> failedTransfers() {
-        return Collections.unmodifiableList(failedTransfers);
+        return Collections.unmodifiableList(new ArrayList<>(failedTransfers));
+    }
+
+
+    /**
+     * @return An immutable snapshot of the transfer metrics gathered so far
+     */
+    public TransferStatistics statistics() {
+        Map<String, RepositoryTransferStatistics> snapshot = new TreeMap<>();
+        repositories.forEach((id, counters) -> snapshot.put(id, counters.snapshot(id)));
+        return new TransferStatistics(snapshot);
     }
 
 
     @Override
     public void transferInitiated(TransferEvent event) throws TransferCancelledException {
-        //
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            RepositoryCounters counters = counters(event);
+            counters.active.incrementAndGet();
+            counters.firstStart.accumulateAndGet(event.getResource().getTransferStartTime(), Math::min);
+        }
+        checkCancelled(event);
     }
 
 
     @Override
     public void transferStarted(TransferEvent event) throws TransferCancelledException {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            RepositoryCounters counters = counters(event);
+            counters.timeToFirstByte.add(
+                Math.max(0, System.currentTimeMillis() - event.getResource().getTransferStartTime())
+            );
+            counters.firstBytes.increment();
+        }
         if (event.getResource().getResourceName().endsWith(".jar") && logger.isInfoEnabled()) {
             logger.debug(
                     "Transferring {} [{}] from {}  ...",
@@ -60,7 +197,10 @@ public class MavenTransferListener implements TransferListener {
 
     @Override
     public void transferProgressed(TransferEvent event) throws TransferCancelledException {
-
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            counters(event).bytes.add(event.getDataLength());
+        }
+        checkCancelled(event);
     }
 
 
@@ -74,6 +214,11 @@ public class MavenTransferListener implements TransferListener {
 
     @Override
     public void transferSucceeded(TransferEvent event) {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            RepositoryCounters counters = counters(event);
+            counters.succeeded.increment();
+            counters.ended(event.getResource());
+        }
         if (event.getResource().getResourceName().endsWith(".jar")) {
             this.succededTransfers.add(resourceNameTrimmed(event));
             this.failedTransfers.remove(resourceNameTrimmed(event));
@@ -91,6 +236,11 @@ public class MavenTransferListener implements TransferListener {
 
     @Override
     public void transferFailed(TransferEvent event) {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            RepositoryCounters counters = counters(event);
+            counters.failed.increment();
+            counters.ended(event.getResource());
+        }
         if (event.getResource().getResourceName().endsWith(".jar")) {
             this.failedTransfers.add(resourceNameTrimmed(event));
             if (logger.isErrorEnabled()) {
@@ -104,6 +254,21 @@ public class MavenTransferListener implements TransferListener {
     }
 
 
+    private void checkCancelled(TransferEvent event) throws TransferCancelledException {
+        if (cancelled.getAsBoolean()) {
+            throw new TransferCancelledException(
+                "Transfer of " + event.getResource().getResourceName() + " cancelled"
+            );
+        }
+    }
+
+
+    private RepositoryCounters counters(TransferEvent event) {
+        TransferResource resource = event.getResource();
+        return repositories.computeIfAbsent(resource.getRepositoryId(), id -> new RepositoryCounters(resource.getRepositoryUrl()));
+    }
+
+
     private String resourceName(TransferEvent event) {
         return String.format("%-80s", resourceNameTrimmed(event));
     }
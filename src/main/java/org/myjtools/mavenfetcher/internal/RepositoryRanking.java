@@ -0,0 +1,170 @@
+/*
+  @author Luis Iñesta Gelabert -  luiinge@gmail.com
+ */
+package org.myjtools.mavenfetcher.internal;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Ranking of the remote repositories by their observed performance, shared by every fetch
+ * operation of a fetcher.
+ * <p>
+ * Each download feeds the score of its repository with its latency until the first byte,
+ * its throughput, and whether it failed (a missing resource is not a failure, but still a
+ * latency sample). Observations lose half of their weight every few minutes, so the score
+ * follows the current state of the repository; once too old, the repository is considered
+ * unknown again and tried first, so it gets measured anew.
+ * <p>
+ * <em>This class is thread-safe.</em>
+ */
+public class RepositoryRanking extends AbstractTransferListener {
+
+    private static final long HALF_LIFE_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    /*
+     * Below this weight, the observations are too old to tell anything
+     */
+    private static final double MIN_WEIGHT = 0.5;
+
+    /*
+     * The size of a typical descriptor, used to weigh throughput against latency
+     */
+    private static final double REFERENCE_SIZE = 16 * 1024;
+
+    private static final double MAX_ERROR_RATE = 0.9;
+
+
+    private static final class Score {
+
+        private double weight;
+        private double latencyMillis;
+        private double errors;
+        private double bytes;
+        private double transferMillis;
+        private long updated = System.currentTimeMillis();
+
+        private synchronized void record(long now, long latency, boolean error, long bytes, long millis) {
+            decay(now);
+            this.weight += 1;
+            this.latencyMillis += latency;
+            this.errors += error ? 1 : 0;
+            this.bytes += bytes;
+            this.transferMillis += millis;
+        }
+
+        /**
+         * @return The expected time, in milliseconds, to fetch a typical resource, or
+         * {@code NaN} if unknown
+         */
+        private synchronized double cost(long now) {
+            decay(now);
+            if (weight < MIN_WEIGHT) {
+                return Double.NaN;
+            }
+            double latency = latencyMillis / weight;
+            double transfer = bytes > 0 ? REFERENCE_SIZE * transferMillis / bytes : 0;
+            double errorRate = Math.min(MAX_ERROR_RATE, errors / weight);
+            return (latency + transfer) / (1 - errorRate);
+        }
+
+        private void decay(long now) {
+            if (now > updated) {
+                double factor = Math.pow(0.5, (double) (now - updated) / HALF_LIFE_MILLIS);
+                weight *= factor;
+                latencyMillis *= factor;
+                errors *= factor;
+                bytes *= factor;
+                transferMillis *= factor;
+                updated = now;
+            }
+        }
+    }
+
+
+    private final Map<String, Score> scores = new ConcurrentHashMap<>();
+    private final Map<TransferResource, Long> firstBytes = new ConcurrentHashMap<>();
+
+
+    /**
+     * @return The given repositories, the unknown ones first in their original order and then
+     * the rest from the best scored to the worst
+     */
+    public List<RemoteRepository> rank(List<RemoteRepository> repositories) {
+        long now = System.currentTimeMillis();
+        Map<String, Double> costs = new HashMap<>();
+        for (RemoteRepository repository : repositories) {
+            Score score = scores.get(repository.getId());
+            costs.put(repository.getId(), score == null ? Double.NaN : score.cost(now));
+        }
+        List<RemoteRepository> ranked = new ArrayList<>(repositories);
+        // the sort is stable, so unknown repositories keep their relative order
+        ranked.sort(Comparator.comparingDouble(repository -> {
+            double cost = costs.get(repository.getId());
+            return Double.isNaN(cost) ? Double.NEGATIVE_INFINITY : cost;
+        }));
+        return ranked;
+    }
+
+
+    @Override
+    public void transferStarted(TransferEvent event) {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            firstBytes.put(event.getResource(), System.currentTimeMillis());
+        }
+    }
+
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            long now = System.currentTimeMillis();
+            long firstByte = firstBytes.getOrDefault(event.getResource(), now);
+            firstBytes.remove(event.getResource());
+            score(event).record(
+                now,
+                Math.max(0, firstByte - event.getResource().getTransferStartTime()),
+                false,
+                event.getTransferredBytes(),
+                now - firstByte
+            );
+        }
+    }
+
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        if (event.getRequestType() == TransferEvent.RequestType.GET) {
+            long now = System.currentTimeMillis();
+            firstBytes.remove(event.getResource());
+            boolean missing = event.getException() instanceof ArtifactNotFoundException
+                || event.getException() instanceof MetadataNotFoundException;
+            score(event).record(
+                now,
+                Math.max(0, now - event.getResource().getTransferStartTime()),
+                !missing,
+                0,
+                0
+            );
+        }
+    }
+
+
+    private Score score(TransferEvent event) {
+        return scores.computeIfAbsent(event.getResource().getRepositoryId(), id -> new Score());
+    }
+
+}
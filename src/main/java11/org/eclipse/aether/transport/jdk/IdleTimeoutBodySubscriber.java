@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.jdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A body subscriber exposing the response body as an input stream whose reads fail once no data arrives for a given
+ * time. The request timeout of the platform client only applies until the response headers are received, so the
+ * stream of {@link HttpResponse.BodyHandlers#ofInputStream()} would wait forever for a body stalled by the server.
+ * When the timeout expires, the subscription is cancelled, which releases the connection.
+ * <p>
+ * Like the stream of the platform client, it is meant to be read by a single thread, while it can be closed from any.
+ */
+final class IdleTimeoutBodySubscriber extends InputStream implements HttpResponse.BodySubscriber<InputStream> {
+
+    /*
+     * Marks the end of the body, compared by identity
+     */
+    private static final List<ByteBuffer> END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final long timeoutMillis;
+
+    private final BlockingQueue<List<ByteBuffer>> queue = new LinkedBlockingQueue<>();
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile Throwable failure;
+
+    private volatile boolean closed;
+
+    private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+
+    private ByteBuffer buffer;
+
+    private boolean finished;
+
+    private IdleTimeoutBodySubscriber(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Creates a body handler providing the body as an input stream with the given idle timeout.
+     *
+     * @param timeout The maximum time to wait for further data, non-positive to wait forever.
+     * @return The body handler, never {@code null}.
+     */
+    static HttpResponse.BodyHandler<InputStream> handler(Duration timeout) {
+        long timeoutMillis = timeout.toMillis();
+        return responseInfo -> new IdleTimeoutBodySubscriber(timeoutMillis);
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        } else {
+            subscription.request(1L);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        queue.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        queue.offer(END);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer current = nextBuffer();
+        return current == null ? -1 : current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer current = nextBuffer();
+        if (current == null) {
+            return -1;
+        }
+        int count = Math.min(len, current.remaining());
+        current.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    private ByteBuffer nextBuffer() throws IOException {
+        while (buffer == null || !buffer.hasRemaining()) {
+            if (buffers.hasNext()) {
+                buffer = buffers.next();
+                continue;
+            }
+            if (finished) {
+                return null;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            List<ByteBuffer> next = poll();
+            if (next == END) {
+                finished = true;
+                if (failure != null) {
+                    throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+                }
+                return null;
+            }
+            buffers = next.iterator();
+            subscription.request(1L);
+        }
+        return buffer;
+    }
+
+    private List<ByteBuffer> poll() throws IOException {
+        try {
+            if (timeoutMillis <= 0L) {
+                return queue.take();
+            }
+            List<ByteBuffer> next = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                close();
+                throw new SocketTimeoutException("No data received from the server for " + timeoutMillis + " ms");
+            }
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (IOException) new InterruptedIOException().initCause(e);
+        }
+    }
+}
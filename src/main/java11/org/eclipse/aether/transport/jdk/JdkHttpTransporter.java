@@ -0,0 +1,524 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.jdk;
+
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportTask;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.LearnedAuthSchemes;
+import org.eclipse.aether.transport.http.RetryPolicy;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A transporter for HTTP/HTTPS backed by the HTTP client of the Java platform, speaking HTTP/2 when the server
+ * supports it.
+ * <p>
+ * Clients are shared among the transporters of the same host, proxy and credentials, so concurrent transfers are
+ * multiplexed over a single connection instead of opening one connection per transfer. The insecure HTTPS mode is
+ * not supported; repositories using it are left to the next transporter factory.
+ */
+final class JdkHttpTransporter extends AbstractTransporter {
+
+    private static final int NOT_MODIFIED = 304;
+
+    private static final int NOT_FOUND = 404;
+
+    private static final int PRECONDITION_FAILED = 412;
+
+    /*
+     * Only textual resources are worth compressing; artifacts are usually compressed already
+     */
+    private static final Pattern COMPRESSIBLE_PATTERN =
+            Pattern.compile(".*\\.(pom|xml|md5|sha1|sha256|sha512)$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CONTENT_RANGE_PATTERN =
+            Pattern.compile("\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/.*");
+
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdkHttpTransporter.class);
+
+    private final URI baseUri;
+
+    private final HttpClient client;
+
+    private final Map<String, String> headers;
+
+    private final Duration requestTimeout;
+
+    private final Duration idleTimeout;
+
+    private final RetryPolicy retryPolicy;
+
+    private final AuthenticationContext repoAuthContext;
+
+    private final AuthenticationContext proxyAuthContext;
+
+    JdkHttpTransporter(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+        if (!"http".equalsIgnoreCase(repository.getProtocol()) && !"https".equalsIgnoreCase(repository.getProtocol())) {
+            throw new NoTransporterException(repository);
+        }
+        try {
+            URI uri = new URI(repository.getUrl()).parseServerAuthority();
+            if (uri.isOpaque()) {
+                throw new URISyntaxException(repository.getUrl(), "URL must not be opaque");
+            }
+            if (uri.getHost() == null) {
+                throw new URISyntaxException(repository.getUrl(), "URL lacks host name");
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().endsWith("/")
+                    ? uri.getRawPath()
+                    : uri.getRawPath() + "/";
+            this.baseUri = uri.resolve(path == null || path.isEmpty() ? "/" : path);
+        } catch (URISyntaxException e) {
+            throw new NoTransporterException(repository, e.getMessage(), e);
+        }
+
+        String httpsSecurityMode = ConfigUtils.getString(
+                session,
+                ConfigurationProperties.HTTPS_SECURITY_MODE_DEFAULT,
+                ConfigurationProperties.HTTPS_SECURITY_MODE + "." + repository.getId(),
+                ConfigurationProperties.HTTPS_SECURITY_MODE);
+        if (ConfigurationProperties.HTTPS_SECURITY_MODE_INSECURE.equals(httpsSecurityMode)) {
+            throw new NoTransporterException(repository, "Insecure HTTPS mode is not supported");
+        }
+
+        Map<String, String> configuredHeaders = new HashMap<>();
+        ConfigUtils.getMap(
+                        session,
+                        Collections.emptyMap(),
+                        ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(),
+                        ConfigurationProperties.HTTP_HEADERS)
+                .forEach((key, value) -> {
+                    if (key instanceof String && value instanceof String) {
+                        configuredHeaders.put((String) key, (String) value);
+                    }
+                });
+        configuredHeaders.putIfAbsent(
+                "User-Agent",
+                ConfigUtils.getString(
+                        session, ConfigurationProperties.DEFAULT_USER_AGENT, ConfigurationProperties.USER_AGENT));
+
+        this.repoAuthContext = AuthenticationContext.forRepository(session, repository);
+        this.proxyAuthContext = AuthenticationContext.forProxy(session, repository);
+        PasswordAuthentication serverCredentials = credentials(repoAuthContext);
+        PasswordAuthentication proxyCredentials = credentials(proxyAuthContext);
+
+        boolean preemptiveAuth = ConfigUtils.getBoolean(
+                session,
+                ConfigurationProperties.DEFAULT_HTTP_PREEMPTIVE_AUTH,
+                ConfigurationProperties.HTTP_PREEMPTIVE_AUTH + "." + repository.getId(),
+                ConfigurationProperties.HTTP_PREEMPTIVE_AUTH);
+        String bearerToken =
+                repoAuthContext != null ? repoAuthContext.get(AuthenticationContext.BEARER_TOKEN) : null;
+        Object learnedAuthSchemes = ConfigUtils.getObject(session, null, LearnedAuthSchemes.CONFIG_PROP);
+        String learnedScheme = learnedAuthSchemes instanceof LearnedAuthSchemes
+                ? ((LearnedAuthSchemes) learnedAuthSchemes).get(authServer(baseUri))
+                : null;
+        if (bearerToken != null) {
+            // the client only answers Basic challenges, so the token is always sent upfront
+            configuredHeaders.put("Authorization", "Bearer " + bearerToken);
+        } else if ((preemptiveAuth || "basic".equalsIgnoreCase(learnedScheme)) && serverCredentials != null) {
+            String token = serverCredentials.getUserName() + ":" + new String(serverCredentials.getPassword());
+            configuredHeaders.put(
+                    "Authorization",
+                    "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8)));
+        }
+        this.headers = Collections.unmodifiableMap(configuredHeaders);
+
+        int connectTimeout = ConfigUtils.getInteger(
+                session,
+                ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                ConfigurationProperties.CONNECT_TIMEOUT + "." + repository.getId(),
+                ConfigurationProperties.CONNECT_TIMEOUT);
+        int timeout = ConfigUtils.getInteger(
+                session,
+                ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                ConfigurationProperties.REQUEST_TIMEOUT + "." + repository.getId(),
+                ConfigurationProperties.REQUEST_TIMEOUT);
+        // the client is shared, so the connect timeout is enforced as part of the request timeout
+        this.requestTimeout = Duration.ofMillis((long) connectTimeout + timeout);
+        // unlike a socket timeout, the request timeout does not cover the body, which is bounded on its own
+        this.idleTimeout = Duration.ofMillis(timeout);
+        this.retryPolicy = new RetryPolicy(session, repository);
+
+        Proxy proxy = repository.getProxy();
+        SSLContext sslContext = repoAuthContext == null
+                ? null
+                : repoAuthContext.get(AuthenticationContext.SSL_CONTEXT, SSLContext.class);
+        List<Object> endpoint = Arrays.asList(
+                baseUri.getScheme(),
+                baseUri.getAuthority(),
+                proxy == null ? null : proxy.getHost() + ":" + proxy.getPort(),
+                serverCredentials == null ? null : serverCredentials.getUserName(),
+                proxyCredentials == null ? null : proxyCredentials.getUserName(),
+                sslContext);
+        SharedClients sharedClients = SharedClients.get(session);
+        this.client = sharedClients == null
+                ? newClient(proxy, serverCredentials, proxyCredentials, sslContext)
+                : sharedClients.client(
+                        endpoint,
+                        Arrays.asList(
+                                serverCredentials == null ? null : new String(serverCredentials.getPassword()),
+                                proxyCredentials == null ? null : new String(proxyCredentials.getPassword())),
+                        () -> newClient(proxy, serverCredentials, proxyCredentials, sslContext));
+    }
+
+    /*
+     * Same key as the Apache transporter, so both share the learned schemes
+     */
+    private static String authServer(URI uri) {
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort() >= 0 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+        return scheme + "://" + uri.getHost() + ":" + port;
+    }
+
+    private static PasswordAuthentication credentials(AuthenticationContext context) {
+        if (context == null) {
+            return null;
+        }
+        String username = context.get(AuthenticationContext.USERNAME);
+        if (username == null) {
+            return null;
+        }
+        String password = context.get(AuthenticationContext.PASSWORD);
+        return new PasswordAuthentication(username, password == null ? new char[0] : password.toCharArray());
+    }
+
+    private static HttpClient newClient(
+            Proxy proxy,
+            PasswordAuthentication serverCredentials,
+            PasswordAuthentication proxyCredentials,
+            SSLContext sslContext) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (proxy != null) {
+            builder.proxy(ProxySelector.of(new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+        }
+        if (serverCredentials != null || proxyCredentials != null) {
+            builder.authenticator(new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return getRequestorType() == RequestorType.PROXY ? proxyCredentials : serverCredentials;
+                }
+            });
+        }
+        if (sslContext != null) {
+            builder.sslContext(sslContext);
+        }
+        return builder.build();
+    }
+
+    private URI resolve(TransportTask task) {
+        String location = task.getLocation().toString();
+        return baseUri.resolve(location.startsWith("/") ? location.substring(1) : location);
+    }
+
+    @Override
+    public int classify(Throwable error) {
+        if (error instanceof HttpStatusException && ((HttpStatusException) error).getStatusCode() == NOT_FOUND) {
+            return ERROR_NOT_FOUND;
+        }
+        return ERROR_OTHER;
+    }
+
+    @Override
+    protected void implPeek(PeekTask task) throws Exception {
+        HttpRequest request = request(resolve(task))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        handleStatus(send(request, HttpResponse.BodyHandlers.discarding()));
+    }
+
+    @Override
+    protected void implGet(GetTask task) throws Exception {
+        boolean resume = task.getResumeOffset() > 0L && task.getDataFile() != null;
+        HttpResponse<InputStream> response =
+                send(getRequest(task, resume), IdleTimeoutBodySubscriber.handler(idleTimeout));
+        if (resume && response.statusCode() == PRECONDITION_FAILED) {
+            response.body().close();
+            response = send(getRequest(task, false), IdleTimeoutBodySubscriber.handler(idleTimeout));
+        }
+        try (InputStream body = decoded(response)) {
+            if (response.statusCode() == NOT_MODIFIED && isConditional(task)) {
+                task.setNotModified(true);
+                return;
+            }
+            handleStatus(response);
+
+            long offset = 0L, length = response.headers().firstValueAsLong("Content-Length").orElse(-1L);
+            if (response.headers().firstValue("Content-Encoding").isPresent()) {
+                // the length of the decoded data is unknown
+                length = -1L;
+            }
+            Optional<String> range = response.headers().firstValue("Content-Range");
+            if (range.isPresent()) {
+                Matcher m = CONTENT_RANGE_PATTERN.matcher(range.get());
+                if (!m.matches()) {
+                    throw new IOException("Invalid Content-Range header for partial download: " + range.get());
+                }
+                offset = Long.parseLong(m.group(1));
+                length = Long.parseLong(m.group(2)) + 1L;
+                if (offset < 0L || offset >= length || (offset > 0L && offset != task.getResumeOffset())) {
+                    throw new IOException("Invalid Content-Range header for partial download from offset "
+                            + task.getResumeOffset() + ": " + range.get());
+                }
+            }
+
+            final boolean resumed = offset > 0L;
+            final File dataFile = task.getDataFile();
+            if (dataFile == null) {
+                utilGet(task, body, true, length, resumed);
+            } else {
+                try (FileUtils.CollocatedTempFile tempFile = FileUtils.newTempFile(dataFile.toPath())) {
+                    task.setDataFile(tempFile.getPath().toFile(), resumed);
+                    if (resumed && Files.isRegularFile(dataFile.toPath())) {
+                        try (InputStream inputStream = Files.newInputStream(dataFile.toPath())) {
+                            Files.copy(inputStream, tempFile.getPath(), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                    utilGet(task, body, true, length, resumed);
+                    tempFile.move();
+                } finally {
+                    task.setDataFile(dataFile);
+                }
+            }
+            extractChecksums(response.headers(), task);
+            extractValidators(response.headers(), task);
+        }
+    }
+
+    @Override
+    protected void implPut(PutTask task) throws Exception {
+        try (FileUtils.TempFile tempFile = FileUtils.newTempFile()) {
+            utilPut(task, Files.newOutputStream(tempFile.getPath()), true);
+            HttpRequest request = request(resolve(task))
+                    .PUT(HttpRequest.BodyPublishers.ofFile(tempFile.getPath()))
+                    .build();
+            handleStatus(send(request, HttpResponse.BodyHandlers.discarding()));
+        }
+    }
+
+    /*
+     * Retries the request on I/O errors and as long as the server is temporarily unavailable
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            retryPolicy.await();
+            HttpResponse<T> response;
+            try {
+                response = client.send(request, handler);
+            } catch (InterruptedIOException | HttpTimeoutException | ConnectException e) {
+                throw e;
+            } catch (IOException e) {
+                long delay = retryPolicy.failed(attempt, null);
+                if (delay < 0L) {
+                    throw e;
+                }
+                LOGGER.debug("{} {} failed, retrying in {} ms", request.method(), request.uri(), delay, e);
+                RetryPolicy.sleep(delay);
+                continue;
+            }
+            if (!retryPolicy.isRetryable(response.statusCode())) {
+                retryPolicy.succeeded();
+                return response;
+            }
+            long delay = retryPolicy.failed(
+                    attempt, response.headers().firstValue("Retry-After").orElse(null));
+            if (delay < 0L) {
+                return response;
+            }
+            LOGGER.debug(
+                    "{} {} answered with status {}, retrying in {} ms",
+                    request.method(),
+                    request.uri(),
+                    response.statusCode(),
+                    delay);
+            if (response.body() instanceof InputStream) {
+                ((InputStream) response.body()).close();
+            }
+            RetryPolicy.sleep(delay);
+        }
+    }
+
+    private HttpRequest getRequest(GetTask task, boolean resume) {
+        HttpRequest.Builder request = request(resolve(task)).GET();
+        if (!resume
+                && COMPRESSIBLE_PATTERN.matcher(task.getLocation().getPath()).matches()
+                && !headers.containsKey("Accept-Encoding")) {
+            request.header("Accept-Encoding", "gzip, deflate");
+        }
+        if (task.getETag() != null) {
+            request.header("If-None-Match", task.getETag());
+        }
+        if (task.getRemoteLastModified() > 0L) {
+            request.header("If-Modified-Since", HTTP_DATE.format(Instant.ofEpochMilli(task.getRemoteLastModified())));
+        }
+        if (resume) {
+            request.header("Range", "bytes=" + task.getResumeOffset() + '-');
+            request.header(
+                    "If-Unmodified-Since",
+                    HTTP_DATE.format(Instant.ofEpochMilli(task.getDataFile().lastModified() - 60L * 1000L)));
+        }
+        return request.build();
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Cache-Control", "no-cache, no-store")
+                .header("Pragma", "no-cache");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            try {
+                request.setHeader(header.getKey(), header.getValue());
+            } catch (IllegalArgumentException e) {
+                // headers such as Connection or Host are managed by the client itself
+                LOGGER.debug("Ignoring restricted HTTP header {}", header.getKey());
+            }
+        }
+        return request;
+    }
+
+    private static void handleStatus(HttpResponse<?> response) throws HttpStatusException {
+        if (response.statusCode() >= 300) {
+            throw new HttpStatusException(response.statusCode());
+        }
+    }
+
+    /*
+     * Unlike other clients, the JDK one does not decode compressed responses by itself
+     */
+    private static InputStream decoded(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+        if (response.statusCode() >= 300) {
+            // error responses are discarded anyway
+            return response.body();
+        }
+        switch (encoding.trim().toLowerCase(Locale.ENGLISH)) {
+            case "identity":
+                return response.body();
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(response.body());
+            case "deflate":
+                return new InflaterInputStream(response.body());
+            default:
+                response.body().close();
+                throw new IOException("Unsupported content encoding " + encoding);
+        }
+    }
+
+    private static boolean isConditional(GetTask task) {
+        return task.getETag() != null || task.getRemoteLastModified() > 0L;
+    }
+
+    private static void extractValidators(HttpHeaders headers, GetTask task) {
+        long lastModified = 0L;
+        Optional<String> date = headers.firstValue("Last-Modified");
+        if (date.isPresent()) {
+            try {
+                lastModified = Instant.from(HTTP_DATE.parse(date.get())).toEpochMilli();
+            } catch (DateTimeException e) {
+                LOGGER.debug("Ignoring invalid Last-Modified header {}", date.get());
+            }
+        }
+        task.setValidators(headers.firstValue("ETag").orElse(null), lastModified);
+    }
+
+    /*
+     * Same headers as the checksum extractors of the Apache HttpClient based transporter
+     */
+    private static void extractChecksums(HttpHeaders headers, GetTask task) {
+        Map<String, String> checksums = new HashMap<>();
+        headers.firstValue("x-checksum-sha1").ifPresent(value -> checksums.put("SHA-1", value));
+        headers.firstValue("x-checksum-md5").ifPresent(value -> checksums.put("MD5", value));
+        if (checksums.isEmpty()) {
+            headers.firstValue("x-goog-meta-checksum-sha1").ifPresent(value -> checksums.put("SHA-1", value));
+            headers.firstValue("x-goog-meta-checksum-md5").ifPresent(value -> checksums.put("MD5", value));
+        }
+        if (checksums.isEmpty()) {
+            // Nexus-style, ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"
+            headers.firstValue("ETag").ifPresent(etag -> {
+                int start = etag.indexOf("SHA1{"), end = etag.indexOf("}", start + 5);
+                if (start >= 0 && end > start) {
+                    checksums.put("SHA-1", etag.substring(start + 5, end));
+                }
+            });
+        }
+        checksums.forEach(task::setChecksum);
+    }
+
+    @Override
+    protected void implClose() {
+        AuthenticationContext.close(repoAuthContext);
+        AuthenticationContext.close(proxyAuthContext);
+    }
+}
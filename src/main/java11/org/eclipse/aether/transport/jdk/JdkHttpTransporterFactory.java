@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.jdk;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+
+import javax.inject.Named;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A transporter factory for repositories using the {@code http:} or {@code https:} protocol, backed by the HTTP
+ * client of the Java platform. The provided transporters speak HTTP/2 when the server supports it, and support
+ * resumable downloads.
+ * <p>
+ * The factory has a lower priority than the Apache HttpClient based one, so it must be explicitly enabled by raising
+ * its priority (see {@code aether.priority.*} configuration properties).
+ */
+@Named(JdkHttpTransporterFactory.NAME)
+public final class JdkHttpTransporterFactory implements TransporterFactory {
+    public static final String NAME = "jdk";
+
+    private float priority = 1.0f;
+
+    @Override
+    public float getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this component.
+     *
+     * @param priority The priority.
+     * @return This component for chaining, never {@code null}.
+     */
+    public JdkHttpTransporterFactory setPriority(float priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository)
+            throws NoTransporterException {
+        requireNonNull(session, "session cannot be null");
+        requireNonNull(repository, "repository cannot be null");
+
+        return new JdkHttpTransporter(session, repository);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.eclipse.aether.transport.jdk;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Container for the HTTP clients shared across incarnations of the transporter. Every client keeps a single
+ * connection per host when speaking HTTP/2, so sharing them allows concurrent transfers to be multiplexed over the
+ * same connection.
+ * <p>
+ * Clients are keyed by their endpoint, while their credentials are only kept as a salted digest, so the secrets are
+ * not retained by the container. There is a single client per endpoint: when the credentials change, the client is
+ * replaced by a new one.
+ */
+final class SharedClients implements Closeable {
+
+    private static final String KEY = SharedClients.class.getName();
+
+    private static final class Entry {
+
+        private final byte[] credentials;
+
+        private final HttpClient client;
+
+        private Entry(byte[] credentials, HttpClient client) {
+            this.credentials = credentials;
+            this.client = client;
+        }
+    }
+
+    private final ConcurrentMap<List<Object>, Entry> clients = new ConcurrentHashMap<>();
+
+    private final byte[] salt = new byte[16];
+
+    private SharedClients() {
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Returns the shared clients of the given session, or {@code null} if the session has no cache.
+     */
+    static SharedClients get(RepositorySystemSession session) {
+        RepositoryCache repoCache = session.getCache();
+        if (repoCache == null) {
+            return null;
+        }
+        Object tmp = repoCache.get(session, KEY);
+        if (tmp instanceof SharedClients) {
+            return (SharedClients) tmp;
+        }
+        synchronized (SharedClients.class) {
+            tmp = repoCache.get(session, KEY);
+            if (tmp instanceof SharedClients) {
+                return (SharedClients) tmp;
+            }
+            SharedClients clients = new SharedClients();
+            repoCache.put(session, KEY, clients);
+            return clients;
+        }
+    }
+
+    /**
+     * Returns the client of the given endpoint, creating it if there is none or if it was created with other
+     * credentials. A replaced client is not closed, since it may still be in use by a transfer; it releases its idle
+     * connections by itself.
+     *
+     * @param endpoint The non-secret attributes identifying the client, such as the host, the proxy and the
+     *            usernames.
+     * @param credentials The passwords the client is created with, {@code null} elements allowed.
+     * @param factory The factory of the client.
+     */
+    HttpClient client(List<Object> endpoint, List<String> credentials, Supplier<HttpClient> factory) {
+        byte[] digest = digest(credentials);
+        return clients.compute(
+                        endpoint,
+                        (key, entry) -> entry != null && MessageDigest.isEqual(entry.credentials, digest)
+                                ? entry
+                                : new Entry(digest, factory.get()))
+                .client;
+    }
+
+    private byte[] digest(List<String> credentials) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(salt);
+        for (String credential : credentials) {
+            if (credential == null) {
+                digest.update((byte) 0);
+            } else {
+                byte[] bytes = credential.getBytes(StandardCharsets.UTF_8);
+                digest.update((byte) 1);
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+        }
+        return digest.digest();
+    }
+
+    @Override
+    public void close() {
+        for (Entry entry : clients.values()) {
+            HttpClient client = entry.client;
+            // clients are only closeable since Java 21; otherwise, idle connections are released by the client itself
+            if (client instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) client).close();
+                } catch (Exception e) {
+                    // ignored
+                }
+            }
+        }
+        clients.clear();
+    }
+}
@@ -3,6 +3,8 @@
  */
 package org.myjtools.mavenfetcher.test;
 
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,14 +14,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -61,13 +85,299 @@ class TestMavenFetcher {
                         new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile")
                 );
         System.out.println(result);
-        assertThat(result.artifacts()).containsExactly(
+        assertThat(graph(result.artifacts())).isEqualTo(graph(
                 new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
                         new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
                         new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
                 )
+        ));
+
+    }
+
+
+    @Test
+    @DisplayName("Fetched artifacts include the size and modification time of their files")
+    void fetchedArtifactsIncludeFileAttributes() throws IOException {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile")
+                );
+        for (FetchedArtifact artifact : result.allArtifacts().collect(Collectors.toList())) {
+            assertThat(artifact.size()).isEqualTo(Files.size(artifact.path()));
+            assertThat(artifact.lastModified()).isEqualTo(Files.getLastModifiedTime(artifact.path()).toInstant());
+        }
+    }
+
+
+    @Test
+    @DisplayName("The result includes the transfer statistics of each repository")
+    void fetchResultIncludesTransferStatistics() {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile")
+                );
+        RepositoryTransferStatistics statistics = result.transferStatistics().repositories().get("maven-central");
+        assertThat(statistics).isNotNull();
+        assertThat(statistics.bytesTransferred()).isPositive();
+        assertThat(statistics.activeTransfers()).isZero();
+        assertThat(statistics.latencies().get(TransferStatistics.ResourceType.JAR).count()).isEqualTo(3);
+        assertThat(statistics.latencies()).containsKey(TransferStatistics.ResourceType.POM);
+    }
+
+
+    @Test
+    @DisplayName("Each requested artifact is fetched with its own dependencies")
+    void fetchSeveralArtifactsWithSharedDependencies() {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(
+                        new MavenFetchRequest(
+                                "org.apache.maven:maven-artifact:3.9.1",
+                                "org.apache.maven:maven-model:3.9.1"
+                        ).scopes("compile")
+                );
+        System.out.println(result);
+        assertThat(graph(result.artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
+                        new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
+                ),
+                new FetchedArtifact("org.apache.maven:maven-model:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1")
+                )
+        ));
+    }
+
+
+    @Test
+    @DisplayName("Dependencies shared by several artifacts are fetched and reported once")
+    void sharedDependenciesAreReportedOnce() {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(
+                        new MavenFetchRequest(
+                                "org.apache.maven:maven-artifact:3.9.1",
+                                "org.apache.maven:maven-model:3.9.1"
+                        ).scopes("compile")
+                );
+        assertThat(result.allArtifacts().map(FetchedArtifact::coordinates)).containsExactlyInAnyOrder(
+                "org.apache.maven:maven-artifact:3.9.1",
+                "org.apache.maven:maven-model:3.9.1",
+                "org.codehaus.plexus:plexus-utils:3.5.1",
+                "org.apache.commons:commons-lang3:3.8.1"
+        );
+        List<FetchedArtifact> plexusUtils = result.artifacts()
+                .flatMap(FetchedArtifact::dependencies)
+                .filter(it -> it.artifactId().equals("plexus-utils"))
+                .collect(Collectors.toList());
+        assertThat(plexusUtils).hasSize(2);
+        assertThat(plexusUtils.get(0)).isSameAs(plexusUtils.get(1));
+    }
+
+
+    @Test
+    @DisplayName("Several requests can be fetched at once, each one with its own options")
+    void fetchSeveralRequestsAtOnce() {
+        List<MavenFetchResult> results = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchAll(Arrays.asList(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile"),
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1")
+                                .scopes("compile")
+                                .excludingArtifacts("org.apache.commons:commons-lang3"),
+                        new MavenFetchRequest("org.apache.maven:maven-model:3.9.1").scopes("compile")
+                ));
+        assertThat(results).hasSize(3);
+        assertThat(graph(results.get(0).artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
+                        new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
+                )
+        ));
+        assertThat(graph(results.get(1).artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1")
+                )
+        ));
+        assertThat(graph(results.get(2).artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-model:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1")
+                )
+        ));
+        assertThat(results.get(0).transferStatistics().repositories().get("maven-central")
+                .latencies().get(TransferStatistics.ResourceType.JAR).count()).isEqualTo(4);
+    }
+
+
+    @Test
+    @DisplayName("The same fetcher can be used concurrently from several threads")
+    void fetchConcurrentlyWithSharedFetcher() throws Exception {
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<MavenFetchResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> fetcher.fetchArtifacts(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile")
+                )));
+            }
+            for (Future<MavenFetchResult> result : results) {
+                assertThat(graph(result.get().artifacts())).isEqualTo(graph(
+                        new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                                new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
+                                new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
+                        )
+                ));
+            }
+        } finally {
+            executor.shutdown();
+            fetcher.close();
+        }
+    }
+
+
+    @Test
+    @DisplayName("Artifacts can be fetched asynchronously, notifying each one as soon as it is available")
+    void fetchArtifactsAsynchronously() throws Exception {
+        List<String> notified = new CopyOnWriteArrayList<>();
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifactsAsync(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile"),
+                        artifact -> {
+                            assertThat(artifact.path()).exists();
+                            notified.add(artifact.coordinates());
+                        }
+                )
+                .get(5, TimeUnit.MINUTES);
+        assertThat(notified).containsExactlyInAnyOrder(
+                "org.apache.maven:maven-artifact:3.9.1",
+                "org.codehaus.plexus:plexus-utils:3.5.1",
+                "org.apache.commons:commons-lang3:3.8.1"
         );
+        assertThat(result.allArtifacts().map(FetchedArtifact::coordinates))
+                .containsExactlyInAnyOrderElementsOf(notified);
+    }
+
+
+    @Test
+    @DisplayName("A lockfile is written on the first fetch and used to repeat it afterwards")
+    void fetchArtifactsWithLockfile() {
+        Path lockfile = localRepo.resolve("maven-fetcher.lock");
+        MavenFetchRequest request = new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1")
+                .scopes("compile")
+                .lockfile(lockfile);
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        MavenFetchResult first = fetcher.fetchArtifacts(request);
+        assertThat(lockfile).exists();
+        MavenFetchResult second = fetcher.fetchArtifacts(request);
+        assertThat(second.hasErrors()).isFalse();
+        assertThat(second.artifacts()).containsExactlyElementsOf(first.artifacts().collect(Collectors.toList()));
+        assertThat(graph(second.artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
+                        new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
+                )
+        ));
+    }
+
+
+    @Test
+    @DisplayName("A locked artifact corrupted in the local repository is downloaded again")
+    void restoreCorruptedLockedArtifact() throws IOException {
+        Path lockfile = localRepo.resolve("maven-fetcher.lock");
+        MavenFetchRequest request = new MavenFetchRequest("org.myjtools.test:mock-lib:1.0").lockfile(lockfile);
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .clearRemoteRepositories()
+                .addRemoteRepository(new Repository("mock", mockRepo).priority(0))
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        assertThat(fetcher.fetchArtifacts(request).hasErrors()).isFalse();
+        Path jar = localRepo.resolve("org/myjtools/test/mock-lib/1.0/mock-lib-1.0.jar");
+        byte[] original = Files.readAllBytes(jar);
+        Files.write(jar, "corrupted".getBytes(StandardCharsets.UTF_8));
 
+        MavenFetchResult result = fetcher.fetchArtifacts(request);
+        assertThat(result.hasErrors()).isFalse();
+        assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+        assertThat(Files.readAllBytes(jar)).isEqualTo(original);
+    }
+
+
+    @Test
+    @DisplayName("Artifacts can be fetched using HTTP/2")
+    void fetchArtifactsUsingHttp2() {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .http2(true)
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1").scopes("compile"));
+        assertThat(result.hasErrors()).isFalse();
+        assertThat(graph(result.artifacts())).isEqualTo(graph(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
+                        new FetchedArtifact("org.codehaus.plexus:plexus-utils:3.5.1"),
+                        new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
+                )
+        ));
+        assertThat(result.transferStatistics().bytesTransferred()).isPositive();
+    }
+
+
+    @Test
+    @DisplayName("A download stalled by the server fails after the request timeout when using HTTP/2")
+    void stalledDownloadTimesOutUsingHttp2() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (file.toString().endsWith(".jar")) {
+                byte[] content = Files.readAllBytes(file);
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content, 0, content.length / 2);
+                exchange.getResponseBody().flush();
+                try {
+                    release.await(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+        try {
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", "http://localhost:" + server.getAddress().getPort() + "/"))
+                    .http2(true)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            Instant start = Instant.now();
+            MavenFetchResult result = fetcher.fetchArtifacts(
+                    new MavenFetchRequest("org.myjtools.test:mock-lib:1.0").timeout(Duration.ofSeconds(5))
+            );
+            assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(30));
+            assertThat(result.artifacts()).isEmpty();
+            assertThat(localRepo.resolve("org/myjtools/test/mock-lib/1.0/mock-lib-1.0.jar")).doesNotExist();
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
     }
 
 
@@ -83,11 +393,30 @@ class TestMavenFetcher {
                                 .excludingArtifacts("org.codehaus.plexus:plexus-utils")
                 );
         System.out.println(result);
-        assertThat(result.artifacts()).containsExactly(
+        assertThat(graph(result.artifacts())).isEqualTo(graph(
                 new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1",
                         new FetchedArtifact("org.apache.commons:commons-lang3:3.8.1")
                 )
+        ));
+    }
+
+
+    @Test
+    @DisplayName("Excluded artifacts can use wildcards and are not collected at all")
+    void fetchArtifactWithExcludedDependencyPatterns() {
+        MavenFetchResult result = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                .fetchArtifacts(
+                        new MavenFetchRequest("org.apache.maven:maven-artifact:3.9.1")
+                                .scopes("compile")
+                                .excludingArtifacts("org.codehaus.plexus:*", "*:commons-lang3")
+                );
+        assertThat(result.artifacts()).containsExactly(
+                new FetchedArtifact("org.apache.maven:maven-artifact:3.9.1")
         );
+        assertThat(localRepo.resolve("org/codehaus/plexus/plexus-utils")).doesNotExist();
+        assertThat(localRepo.resolve("org/apache/commons/commons-lang3")).doesNotExist();
     }
 
 
@@ -106,6 +435,603 @@ class TestMavenFetcher {
     }
 
 
+    @Test
+    @DisplayName("The latest version of an artifact is resolved once for several requests")
+    void resolveLatestVersionOnceForSeveralRequests() {
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .clearRemoteRepositories()
+                .addRemoteRepository(new Repository("mock", mockRepo).priority(0))
+                .latestVersionCache(Duration.ofMinutes(5))
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        List<MavenFetchResult> results = fetcher.fetchAll(Arrays.asList(
+                new MavenFetchRequest("org.myjtools.test:mock-lib"),
+                new MavenFetchRequest("org.myjtools.test:mock-lib").scopes("compile")
+        ));
+        for (MavenFetchResult result : results) {
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:2.0"));
+        }
+        assertThat(results.get(0).transferStatistics().repositories().get("mock")
+                .latencies().get(TransferStatistics.ResourceType.METADATA).count()).isEqualTo(1);
+        MavenFetchResult cached = fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib"));
+        assertThat(cached.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:2.0"));
+        assertThat(cached.transferStatistics().repositories()).isEmpty();
+    }
+
+
+    @Test
+    @DisplayName("Refreshed metadata is downloaded again only if it was modified")
+    void refreshMetadataOnlyIfModified() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                String eTag = "\"" + Files.size(file) + "-" + Files.getLastModifiedTime(file).toMillis() + "\"";
+                exchange.getResponseHeaders().set("ETag", eTag);
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] data = Files.readAllBytes(file);
+                    exchange.sendResponseHeaders(200, data.length);
+                    exchange.getResponseBody().write(data);
+                }
+            }
+            exchange.close();
+        });
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/";
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", url).priority(0))
+                    .updatePolicy("always")
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            MavenFetchResult first = fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib"));
+            assertThat(first.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:2.0"));
+            assertThat(notModified.get()).isZero();
+            MavenFetchResult refreshed = fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib"));
+            assertThat(refreshed.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:2.0"));
+            assertThat(notModified.get()).isEqualTo(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Large artifacts can be downloaded in several ranges fetched concurrently")
+    void fetchArtifactsInSegments() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        AtomicInteger partialResponses = new AtomicInteger();
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] data = Files.readAllBytes(file);
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                exchange.getResponseHeaders().set("ETag", "\"" + data.length + "\"");
+                if (range == null) {
+                    exchange.sendResponseHeaders(200, data.length);
+                    exchange.getResponseBody().write(data);
+                } else {
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    int start = Integer.parseInt(bounds[0]);
+                    int end = Math.min(data.length - 1, Integer.parseInt(bounds[1]));
+                    partialResponses.incrementAndGet();
+                    exchange.getResponseHeaders().set(
+                            "Content-Range", "bytes " + start + "-" + end + "/" + data.length
+                    );
+                    exchange.sendResponseHeaders(206, end - start + 1);
+                    exchange.getResponseBody().write(data, start, end - start + 1);
+                }
+            }
+            exchange.close();
+        });
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/";
+            MavenFetchResult result = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", url).priority(0))
+                    .segmentedDownloads(3, 64)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                    .fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0"));
+            assertThat(result.hasErrors()).isFalse();
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(partialResponses.get()).isGreaterThan(2);
+            Path jar = Paths.get("org", "myjtools", "test", "mock-lib", "1.0", "mock-lib-1.0.jar");
+            assertThat(Files.readAllBytes(localRepo.resolve(jar))).isEqualTo(Files.readAllBytes(repository.resolve(jar)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("POMs and metadata are transferred compressed, while artifacts are not")
+    void fetchTextResourcesCompressed() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        List<String> compressed = new CopyOnWriteArrayList<>();
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (encoding != null && encoding.contains("gzip")) {
+                compressed.add(file.getFileName().toString());
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream output = new GZIPOutputStream(exchange.getResponseBody())) {
+                    Files.copy(file, output);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/";
+            for (boolean http2 : new boolean[] { false, true }) {
+                compressed.clear();
+                cleanLocalRepo();
+                MavenFetchResult result = new MavenFetcher()
+                        .localRepositoryPath(localRepo.toString())
+                        .clearRemoteRepositories()
+                        .addRemoteRepository(new Repository("mock", url).priority(0))
+                        .http2(http2)
+                        .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                        .fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib"));
+                assertThat(result.hasErrors()).isFalse();
+                assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:2.0"));
+                assertThat(compressed).contains("maven-metadata.xml", "mock-lib-2.0.pom");
+                assertThat(compressed).doesNotContain("mock-lib-2.0.jar");
+                Path pom = Paths.get("org", "myjtools", "test", "mock-lib", "2.0", "mock-lib-2.0.pom");
+                assertThat(localRepo.resolve(pom)).hasSameBinaryContentAs(repository.resolve(pom));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Requests rejected by an overloaded server are retried after the requested delay")
+    void retryRequestsRejectedByOverloadedServer() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        Set<String> rejected = ConcurrentHashMap.newKeySet();
+        HttpServer server = serve(exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            Path file = repository.resolve(path.substring(1));
+            if (path.matches(".*\\.(pom|jar)") && rejected.add(path)) {
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                exchange.sendResponseHeaders(503, -1);
+            } else if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/";
+            for (boolean http2 : new boolean[] { false, true }) {
+                rejected.clear();
+                cleanLocalRepo();
+                MavenFetchResult result = new MavenFetcher()
+                        .localRepositoryPath(localRepo.toString())
+                        .clearRemoteRepositories()
+                        .addRemoteRepository(new Repository("mock", url).priority(0))
+                        .http2(http2)
+                        .retries(2, Duration.ofMillis(10))
+                        .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                        .fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0"));
+                assertThat(result.hasErrors()).isFalse();
+                assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+                assertThat(rejected).isNotEmpty();
+                Path jar = Paths.get("org", "myjtools", "test", "mock-lib", "1.0", "mock-lib-1.0.jar");
+                assertThat(localRepo.resolve(jar)).hasSameBinaryContentAs(repository.resolve(jar));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("A download stalled in a repository is hedged with a mirror of the same content")
+    void hedgeStalledDownloadsWithMirror() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        List<String> mirrored = new CopyOnWriteArrayList<>();
+        HttpHandler handler = exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        };
+        HttpServer slow = serve(exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith(".jar")) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            handler.handle(exchange);
+        });
+        HttpServer mirror = serve(exchange -> {
+            mirrored.add(exchange.getRequestURI().getPath());
+            handler.handle(exchange);
+        });
+        try {
+            MavenFetchResult result = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("slow", "http://localhost:" + slow.getAddress().getPort() + "/").priority(0))
+                    .addRemoteRepository(new Repository("mirror", "http://localhost:" + mirror.getAddress().getPort() + "/").priority(1))
+                    .hedgedRequests(Duration.ofMillis(100), "slow", "mirror")
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+                    .fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0"));
+            assertThat(result.hasErrors()).isFalse();
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(mirrored).contains("/org/myjtools/test/mock-lib/1.0/mock-lib-1.0.jar");
+            Path jar = Paths.get("org", "myjtools", "test", "mock-lib", "1.0", "mock-lib-1.0.jar");
+            assertThat(localRepo.resolve(jar)).hasSameBinaryContentAs(repository.resolve(jar));
+        } finally {
+            slow.stop(0);
+            mirror.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Remote repositories can be ordered by their observed performance")
+    void orderRepositoriesByObservedPerformance() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        AtomicInteger slowRequests = new AtomicInteger();
+        AtomicInteger fastRequests = new AtomicInteger();
+        HttpHandler handler = exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        };
+        HttpServer slow = serve(exchange -> {
+            slowRequests.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handler.handle(exchange);
+        });
+        HttpServer fast = serve(exchange -> {
+            fastRequests.incrementAndGet();
+            handler.handle(exchange);
+        });
+        try {
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("slow", "http://localhost:" + slow.getAddress().getPort() + "/").priority(0))
+                    .addRemoteRepository(new Repository("fast", "http://localhost:" + fast.getAddress().getPort() + "/").priority(1))
+                    .adaptiveRepositoryOrder(true)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            // the first fetches measure each repository, as unknown ones are tried first
+            for (int i = 0; i < 2; i++) {
+                cleanLocalRepo();
+                assertThat(fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0")).hasErrors()).isFalse();
+            }
+            assertThat(slowRequests.get()).isPositive();
+            assertThat(fastRequests.get()).isPositive();
+            int slowBefore = slowRequests.get();
+            cleanLocalRepo();
+            MavenFetchResult result = fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0"));
+            assertThat(result.hasErrors()).isFalse();
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(slowRequests.get()).isEqualTo(slowBefore);
+        } finally {
+            slow.stop(0);
+            fast.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("A descriptor that failed to load is requested again by the next fetch operation")
+    void failedDescriptorsAreNotCached() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        String pom = "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">" +
+                "<modelVersion>4.0.0</modelVersion>" +
+                "<groupId>org.myjtools.test</groupId><artifactId>mock-app</artifactId><version>1.0</version>" +
+                "<dependencies><dependency>" +
+                "<groupId>org.myjtools.test</groupId><artifactId>mock-lib</artifactId><version>1.0</version>" +
+                "</dependency></dependencies></project>";
+        AtomicInteger descriptorRequests = new AtomicInteger();
+        HttpServer server = serve(exchange -> {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            byte[] content = null;
+            if (path.endsWith("mock-app-1.0.pom")) {
+                content = pom.getBytes(StandardCharsets.UTF_8);
+            } else if (path.endsWith("mock-app-1.0.jar")) {
+                content = Files.readAllBytes(repository.resolve("org/myjtools/test/mock-lib/1.0/mock-lib-1.0.jar"));
+            } else if (Files.isRegularFile(repository.resolve(path))) {
+                content = Files.readAllBytes(repository.resolve(path));
+            }
+            if (path.endsWith("mock-lib-1.0.pom") && descriptorRequests.incrementAndGet() == 1) {
+                exchange.sendResponseHeaders(500, -1);
+            } else if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content);
+            }
+            exchange.close();
+        });
+        try {
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", "http://localhost:" + server.getAddress().getPort() + "/"))
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            MavenFetchRequest request = new MavenFetchRequest("org.myjtools.test:mock-app:1.0");
+            assertThatCode(() -> fetcher.fetchArtifacts(request)).isInstanceOf(MavenFetchException.class);
+
+            MavenFetchResult result = fetcher.fetchArtifacts(request);
+            assertThat(result.hasErrors()).isFalse();
+            assertThat(graph(result.artifacts())).isEqualTo(graph(
+                    new FetchedArtifact("org.myjtools.test:mock-app:1.0",
+                            new FetchedArtifact("org.myjtools.test:mock-lib:1.0")
+                    )
+            ));
+            assertThat(descriptorRequests.get()).isEqualTo(2);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Resources not found in a repository are not requested again until invalidated")
+    void cacheResourcesNotFound() throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        AtomicInteger missed = new AtomicInteger();
+        HttpServer empty = serve(exchange -> {
+            missed.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+        Path cacheFile = Files.createTempFile("not-found", ".cache");
+        try {
+            Repository emptyRepository = new Repository("empty", "http://localhost:" + empty.getAddress().getPort() + "/").priority(0);
+            Repository mockRepository = new Repository("mock", "http://localhost:" + server.getAddress().getPort() + "/").priority(1);
+            MavenFetchRequest request = new MavenFetchRequest("org.myjtools.test:mock-lib:1.0");
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(emptyRepository)
+                    .addRemoteRepository(mockRepository)
+                    .notFoundCache(100, Duration.ofMinutes(10), cacheFile)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            assertThat(fetcher.fetchArtifacts(request).hasErrors()).isFalse();
+            int misses = missed.get();
+            assertThat(misses).isPositive();
+
+            cleanLocalRepo();
+            assertThat(fetcher.fetchArtifacts(request).hasErrors()).isFalse();
+            assertThat(missed.get()).isEqualTo(misses);
+
+            // a new fetcher reads the misses persisted by the previous one
+            cleanLocalRepo();
+            MavenFetcher other = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(emptyRepository)
+                    .addRemoteRepository(mockRepository)
+                    .notFoundCache(100, Duration.ofMinutes(10), cacheFile)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            MavenFetchResult result = other.fetchArtifacts(request);
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(missed.get()).isEqualTo(misses);
+
+            cleanLocalRepo();
+            other.invalidateNotFoundCache("empty");
+            assertThat(other.fetchArtifacts(request).hasErrors()).isFalse();
+            assertThat(missed.get()).isGreaterThan(misses);
+        } finally {
+            empty.stop(0);
+            server.stop(0);
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Connections to the remote repositories can be opened ahead of the first fetch")
+    void preopenConnections() throws IOException, InterruptedException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        HttpServer server = serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+        try {
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", "http://localhost:" + server.getAddress().getPort() + "/"))
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            assertThat(fetcher.connectionPoolStatistics().openedConnections()).isZero();
+            fetcher.preopenConnections(3);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (fetcher.connectionPoolStatistics().availableConnections() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            ConnectionPoolStatistics warm = fetcher.connectionPoolStatistics();
+            assertThat(warm.availableConnections()).isEqualTo(3);
+            assertThat(warm.openedConnections()).isEqualTo(3);
+            assertThat(warm.leasedConnections()).isZero();
+            assertThat(warm.handshakes()).isZero();
+
+            MavenFetchResult result = fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:1.0"));
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(fetcher.connectionPoolStatistics().leasedConnections()).isZero();
+            assertThat(fetcher.connectionPoolStatistics().pendingRequests()).isZero();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Credentials are sent preemptively once the server asked for them")
+    void authenticatePreemptively() throws IOException {
+        AtomicInteger challenges = new AtomicInteger();
+        String basic = "Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+        HttpServer basicServer = serveWithAuthentication("Basic realm=\"mock\"", basic, challenges);
+        HttpServer bearerServer = serveWithAuthentication("Bearer realm=\"mock\"", "Bearer token123", challenges);
+        Path cacheFile = Files.createTempFile("auth-schemes", ".cache");
+        try {
+            String basicUrl = "http://localhost:" + basicServer.getAddress().getPort() + "/";
+            MavenFetchRequest request = new MavenFetchRequest("org.myjtools.test:mock-lib:1.0");
+            MavenFetcher fetcher = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", basicUrl).credentials("user", "secret"))
+                    .authSchemeCache(cacheFile)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            assertThat(fetcher.fetchArtifacts(request).hasErrors()).isFalse();
+            int learned = challenges.get();
+            assertThat(learned).isPositive();
+
+            // a new fetcher reads the schemes persisted by the previous one
+            cleanLocalRepo();
+            MavenFetcher other = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", basicUrl).credentials("user", "secret"))
+                    .authSchemeCache(cacheFile)
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            MavenFetchResult result = other.fetchArtifacts(request);
+            assertThat(result.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(challenges.get()).isEqualTo(learned);
+            assertThat(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8)).doesNotContain("secret");
+
+            cleanLocalRepo();
+            MavenFetcher preemptive = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", basicUrl).credentials("user", "secret").preemptiveAuthentication(true))
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            assertThat(preemptive.fetchArtifacts(request).hasErrors()).isFalse();
+            assertThat(challenges.get()).isEqualTo(learned);
+
+            cleanLocalRepo();
+            MavenFetcher bearer = new MavenFetcher()
+                    .localRepositoryPath(localRepo.toString())
+                    .clearRemoteRepositories()
+                    .addRemoteRepository(new Repository("mock", "http://localhost:" + bearerServer.getAddress().getPort() + "/")
+                            .bearerToken("token123")
+                            .preemptiveAuthentication(true))
+                    .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+            assertThat(bearer.fetchArtifacts(request).artifacts())
+                    .containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+            assertThat(challenges.get()).isEqualTo(learned);
+        } finally {
+            basicServer.stop(0);
+            bearerServer.stop(0);
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+
+    @Test
+    @DisplayName("A cancelled request returns an incomplete result instead of failing")
+    void cancelledRequestReturnsIncompleteResult() {
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .clearRemoteRepositories()
+                .addRemoteRepository(new Repository("mock", mockRepo).priority(0))
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        MavenFetchResult cancelled = fetcher.fetchArtifacts(
+                new MavenFetchRequest("org.myjtools.test:mock-lib:1.0").cancellation(token)
+        );
+        assertThat(cancelled.isComplete()).isFalse();
+        assertThat(cancelled.hasErrors()).isTrue();
+        assertThat(cancelled.artifacts()).isEmpty();
+        MavenFetchResult expired = fetcher.fetchArtifacts(
+                new MavenFetchRequest("org.myjtools.test:mock-lib:1.0").deadline(Instant.now().minusSeconds(1))
+        );
+        assertThat(expired.isComplete()).isFalse();
+        MavenFetchResult fetched = fetcher.fetchArtifacts(
+                new MavenFetchRequest("org.myjtools.test:mock-lib:1.0").timeout(Duration.ofMinutes(1))
+        );
+        assertThat(fetched.isComplete()).isTrue();
+        assertThat(fetched.hasErrors()).isFalse();
+        assertThat(fetched.artifacts()).containsExactly(new FetchedArtifact("org.myjtools.test:mock-lib:1.0"));
+    }
+
+
+    @Test
+    @DisplayName("The local repository can be prefetched from a list of coordinates and lockfiles")
+    void prefetchFromCoordinatesFile() throws IOException {
+        MavenFetcher fetcher = new MavenFetcher()
+                .localRepositoryPath(localRepo.toString())
+                .clearRemoteRepositories()
+                .addRemoteRepository(new Repository("mock", mockRepo).priority(0))
+                .logger(LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME));
+        Path lockfile = localRepo.resolve("locks").resolve("mock.lock");
+        fetcher.fetchArtifacts(new MavenFetchRequest("org.myjtools.test:mock-lib:2.0").lockfile(lockfile));
+        Files.delete(localRepo.resolve("org/myjtools/test/mock-lib/2.0/mock-lib-2.0.jar"));
+        Path coordinatesFile = localRepo.resolve("prefetch.txt");
+        Files.write(coordinatesFile, Arrays.asList(
+                "# artifacts to prefetch",
+                "org.myjtools.test:mock-lib:1.0",
+                "",
+                "org.myjtools.test:non-existing:1.0",
+                "locks/mock.lock"
+        ));
+        PrefetchSummary summary = fetcher.prefetch(coordinatesFile);
+        assertThat(summary.requests()).isEqualTo(3);
+        assertThat(summary.failedRequests()).isEqualTo(1);
+        assertThat(summary.artifacts()).isEqualTo(2);
+        assertThat(summary.transferStatistics().succeededTransfers()).isPositive();
+        assertThat(localRepo.resolve("org/myjtools/test/mock-lib/1.0/mock-lib-1.0.jar")).exists();
+        assertThat(localRepo.resolve("org/myjtools/test/mock-lib/2.0/mock-lib-2.0.jar")).exists();
+    }
+
+
     @Test
     @DisplayName("Artifact version can have a profile (such as 33.1.0-jre)")
     void fetchArtifactWithRequiredProfile() {
@@ -187,6 +1113,49 @@ class TestMavenFetcher {
     }
 
 
+    private HttpServer serve(HttpHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", handler);
+        server.start();
+        return server;
+    }
+
+
+    private HttpServer serveWithAuthentication(String challenge, String authorization, AtomicInteger challenges)
+    throws IOException {
+        Path repository = Paths.get("src", "test", "resources", "mock_maven_repo");
+        return serve(exchange -> {
+            Path file = repository.resolve(exchange.getRequestURI().getPath().substring(1));
+            if (!authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                challenges.incrementAndGet();
+                exchange.getResponseHeaders().set("WWW-Authenticate", challenge);
+                exchange.sendResponseHeaders(401, -1);
+            } else if (!Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                Files.copy(file, exchange.getResponseBody());
+            }
+            exchange.close();
+        });
+    }
+
+
+    /*
+     * Artifacts are equal when their coordinates are, so the dependencies are compared on their own
+     */
+    private static String graph(Stream<FetchedArtifact> artifacts) {
+        return artifacts
+                .map(artifact -> artifact.coordinates() + graph(artifact.dependencies()))
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+
+    private static String graph(FetchedArtifact... artifacts) {
+        return graph(Stream.of(artifacts));
+    }
+
+
     private Properties properties(String... pairs) {
         Properties properties = new Properties();
         for (int i = 0; i < pairs.length - 1; i += 2) {